@@ -5,6 +5,10 @@ import org.alpacaindustries.iremiaminigamecore.api.impl.IremiaMinigameAPIImpl;
 import org.alpacaindustries.iremiaminigamecore.command.MinigameCommand;
 import org.alpacaindustries.iremiaminigamecore.minigame.MinigameConfig;
 import org.alpacaindustries.iremiaminigamecore.minigame.MinigameManager;
+import org.alpacaindustries.iremiaminigamecore.util.AsyncUtils;
+import org.alpacaindustries.iremiaminigamecore.util.GameScheduler;
+import org.alpacaindustries.iremiaminigamecore.util.MainThreadQueue;
+import org.alpacaindustries.iremiaminigamecore.util.TickScheduler;
 import org.bukkit.event.Listener;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.Nullable;
@@ -20,6 +24,9 @@ public class IremiaMinigameCorePlugin extends JavaPlugin implements Listener {
 
   private @Nullable MinigameManager minigameManager;
   private @Nullable IremiaMinigameAPI api;
+  private @Nullable GameScheduler gameScheduler;
+  private @Nullable TickScheduler tickScheduler;
+  private @Nullable MainThreadQueue mainThreadQueue;
 
   @Override
   public void onEnable() {
@@ -29,6 +36,19 @@ public class IremiaMinigameCorePlugin extends JavaPlugin implements Listener {
       MinigameConfig.initialize(this);
       getLogger().info("Configuration initialized");
 
+      // Start the shared timer driver
+      this.gameScheduler = new GameScheduler(this);
+      if (GameScheduler.isRegionized()) {
+        getLogger().info("Region-threaded server detected, arenas run on their own regions");
+      }
+      this.tickScheduler = new TickScheduler(this, gameScheduler);
+      tickScheduler.start();
+      getLogger().info("TickScheduler started");
+
+      // Hand async results back to the main thread once per tick
+      this.mainThreadQueue = new MainThreadQueue(getLogger());
+      tickScheduler.scheduleRepeating(mainThreadQueue::drain, 1L, 1L);
+
       // Initialize the minigame manager
       this.minigameManager = new MinigameManager(this);
       getLogger().info("MinigameManager initialized");
@@ -73,10 +93,25 @@ public class IremiaMinigameCorePlugin extends JavaPlugin implements Listener {
             }
           });
         }
+        minigameManager.getMatchmaking().shutdown();
+        minigameManager.getPool().shutdown();
+        minigameManager.getArenas().shutdown();
+        minigameManager.getRatings().shutdown();
+        minigameManager.getStats().shutdown();
+        minigameManager.getMatchLogs().shutdown();
+        minigameManager.getEventBus().shutdown();
         if (api instanceof IremiaMinigameAPIImpl) {
           getLogger().info("Cleaned up API registrations");
         }
       }
+      AsyncUtils.shutdown(5000);
+      if (mainThreadQueue != null) {
+        // Deliver results of async work that finished during shutdown
+        mainThreadQueue.drain();
+      }
+      if (tickScheduler != null) {
+        tickScheduler.shutdown();
+      }
       getLogger().info("IremiaMinigameCore has been disabled!");
     } catch (Exception e) {
       getLogger().severe("Error during plugin shutdown: " + e.getMessage());
@@ -93,6 +128,45 @@ public class IremiaMinigameCorePlugin extends JavaPlugin implements Listener {
     return minigameManager;
   }
 
+  /**
+   * Get the shared tick scheduler that drives all minigame timers.
+   *
+   * @return The tick scheduler
+   * @throws IllegalStateException if the plugin is not enabled
+   */
+  public TickScheduler getTickScheduler() {
+    if (tickScheduler == null) {
+      throw new IllegalStateException("TickScheduler is not initialized");
+    }
+    return tickScheduler;
+  }
+
+  /**
+   * Get the scheduler that routes work to the thread owning a location or entity.
+   *
+   * @return The game scheduler
+   * @throws IllegalStateException if the plugin is not enabled
+   */
+  public GameScheduler getGameScheduler() {
+    if (gameScheduler == null) {
+      throw new IllegalStateException("GameScheduler is not initialized");
+    }
+    return gameScheduler;
+  }
+
+  /**
+   * Get the queue that runs async completions on the main thread once per tick.
+   *
+   * @return The main thread queue
+   * @throws IllegalStateException if the plugin is not enabled
+   */
+  public MainThreadQueue getMainThreadQueue() {
+    if (mainThreadQueue == null) {
+      throw new IllegalStateException("MainThreadQueue is not initialized");
+    }
+    return mainThreadQueue;
+  }
+
   /**
    * Get the API instance.
    * This provides the full API interface for external plugins.
@@ -0,0 +1,121 @@
+package org.alpacaindustries.iremiaminigamecore.api;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Bounded off-thread delivery for asynchronous global listeners
+ *
+ * Work is striped across single-threaded executors by an ordering key, so all
+ * events of one minigame are delivered in the order they were fired while
+ * different minigames are delivered in parallel. Submitting never blocks: when a
+ * stripe's queue is full the event is dropped and counted.
+ */
+final class AsyncListenerLane {
+
+  private static final long DROP_LOG_INTERVAL = 1000;
+
+  private final Logger logger;
+  private final ThreadPoolExecutor[] stripes;
+  private final AtomicLong submitted = new AtomicLong(0);
+  private final AtomicLong delivered = new AtomicLong(0);
+  private final AtomicLong dropped = new AtomicLong(0);
+
+  AsyncListenerLane(Logger logger, int workers, int queueCapacity) {
+    if (workers < 1) {
+      throw new IllegalArgumentException("Async listener workers must be at least 1");
+    }
+    if (queueCapacity < 1) {
+      throw new IllegalArgumentException("Async listener queue capacity must be at least 1");
+    }
+    this.logger = logger;
+    this.stripes = new ThreadPoolExecutor[workers];
+    for (int i = 0; i < workers; i++) {
+      String threadName = "IremiaMinigameCore-Listener-" + i;
+      stripes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+          new ArrayBlockingQueue<>(queueCapacity),
+          task -> {
+            Thread thread = new Thread(task, threadName);
+            thread.setDaemon(true);
+            return thread;
+          },
+          new ThreadPoolExecutor.AbortPolicy());
+    }
+  }
+
+  /**
+   * Queue a task behind all earlier tasks with the same ordering key
+   *
+   * @return false if the task was dropped because the queue is full or shut down
+   */
+  boolean submit(String orderingKey, Runnable task) {
+    submitted.incrementAndGet();
+    ThreadPoolExecutor stripe = stripes[Math.floorMod(orderingKey.hashCode(), stripes.length)];
+    try {
+      stripe.execute(() -> {
+        try {
+          task.run();
+        } finally {
+          delivered.incrementAndGet();
+        }
+      });
+      return true;
+    } catch (RejectedExecutionException e) {
+      recordDrop();
+      return false;
+    }
+  }
+
+  long getSubmitted() {
+    return submitted.get();
+  }
+
+  long getDelivered() {
+    return delivered.get();
+  }
+
+  long getDropped() {
+    return dropped.get();
+  }
+
+  int getQueueDepth() {
+    int depth = 0;
+    for (ThreadPoolExecutor stripe : stripes) {
+      depth += stripe.getQueue().size();
+    }
+    return depth;
+  }
+
+  /**
+   * Stop accepting events and wait for queued events to be delivered
+   */
+  void shutdown(long timeoutMillis) {
+    for (ThreadPoolExecutor stripe : stripes) {
+      stripe.shutdown();
+    }
+    long deadline = System.currentTimeMillis() + timeoutMillis;
+    for (ThreadPoolExecutor stripe : stripes) {
+      try {
+        long remaining = Math.max(0, deadline - System.currentTimeMillis());
+        if (!stripe.awaitTermination(remaining, TimeUnit.MILLISECONDS)) {
+          int abandoned = stripe.shutdownNow().size();
+          dropped.addAndGet(abandoned);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        stripe.shutdownNow();
+      }
+    }
+  }
+
+  private void recordDrop() {
+    long total = dropped.incrementAndGet();
+    if (total == 1 || total % DROP_LOG_INTERVAL == 0) {
+      logger.warning("Async minigame listener queue is full, dropped " + total + " events so far");
+    }
+  }
+}
@@ -4,6 +4,7 @@ import org.alpacaindustries.iremiaminigamecore.minigame.Minigame;
 import org.alpacaindustries.iremiaminigamecore.minigame.MinigameFactory;
 import org.alpacaindustries.iremiaminigamecore.minigame.MinigameManager;
 import org.bukkit.entity.Player;
+import org.bukkit.event.EventPriority;
 import org.bukkit.plugin.Plugin;
 
 import java.util.Map;
@@ -130,6 +131,32 @@ public interface IremiaMinigameAPI {
    */
   void registerGlobalMinigameListener(Plugin plugin, MinigameEventListener listener);
 
+  /**
+   * Register a global event listener for minigame events with a priority.
+   * Listeners with a lower priority are called first.
+   *
+   * @param plugin   The plugin registering the listener
+   * @param listener The event listener
+   * @param priority The order in which the listener is called
+   * @since 1.1.0
+   */
+  void registerGlobalMinigameListener(Plugin plugin, MinigameEventListener listener, EventPriority priority);
+
+  /**
+   * Register a global event listener, optionally delivered off the main thread.
+   * Asynchronous listeners receive the events of each minigame in order, with the
+   * live minigame and player objects; they must only read plain values such as IDs
+   * and must not use the Bukkit API directly. Events are dropped if the queue is full.
+   *
+   * @param plugin   The plugin registering the listener
+   * @param listener The event listener
+   * @param priority The order in which the listener is called
+   * @param async    true to deliver events asynchronously
+   * @since 1.1.0
+   */
+  void registerGlobalMinigameListener(Plugin plugin, MinigameEventListener listener, EventPriority priority,
+      boolean async);
+
   /**
    * Unregister a global event listener
    *
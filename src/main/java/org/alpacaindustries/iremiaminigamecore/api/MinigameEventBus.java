@@ -0,0 +1,351 @@
+package org.alpacaindustries.iremiaminigamecore.api;
+
+import org.alpacaindustries.iremiaminigamecore.minigame.Minigame;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventPriority;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+/**
+ * Typed dispatcher for global minigame events
+ *
+ * Listeners are kept in one sorted array per event type and only appear in the
+ * arrays for the callbacks they override, so firing an event is a direct walk over
+ * the interested listeners. Registration rebuilds the arrays (copy-on-write), and
+ * an exception in one listener never prevents the others from being called.
+ *
+ * Listeners registered as asynchronous are delivered off the main thread through a
+ * bounded lane that keeps the events of each minigame in order. They receive the live
+ * minigame and player objects, which may have changed by the time they run, so they
+ * must not use the Bukkit API or change the minigame without scheduling back to the
+ * thread that owns it; see {@link MinigameEventListener}.
+ *
+ * @since 1.1.0
+ */
+public class MinigameEventBus {
+
+  private enum EventType {
+    CREATED("onMinigameCreated", Minigame.class),
+    STARTED("onMinigameStart", Minigame.class),
+    ENDED("onMinigameEnd", Minigame.class),
+    PLAYER_JOIN("onPlayerJoinMinigame", Player.class, Minigame.class),
+    PLAYER_LEAVE("onPlayerLeaveMinigame", Player.class, Minigame.class),
+    PLAYER_ELIMINATED("onPlayerEliminated", Player.class, Minigame.class, String.class),
+    COUNTDOWN_START("onCountdownStart", Minigame.class),
+    PLAYERS_JOIN(PLAYER_JOIN, "onPlayersJoinMinigame", List.class, Minigame.class),
+    PLAYERS_LEAVE(PLAYER_LEAVE, "onPlayersLeaveMinigame", List.class, Minigame.class);
+
+    private final @Nullable EventType single;
+    private final String methodName;
+    private final Class<?>[] parameterTypes;
+
+    EventType(String methodName, Class<?>... parameterTypes) {
+      this(null, methodName, parameterTypes);
+    }
+
+    /**
+     * @param single Per-player event the default batched callback falls back to
+     */
+    EventType(@Nullable EventType single, String methodName, Class<?>... parameterTypes) {
+      this.single = single;
+      this.methodName = methodName;
+      this.parameterTypes = parameterTypes;
+    }
+
+    /**
+     * Check if a listener overrides the default callback for this event. Batched
+     * events are also handled by listeners that only override the per-player callback.
+     */
+    boolean isHandledBy(MinigameEventListener listener) {
+      try {
+        return listener.getClass().getMethod(methodName, parameterTypes)
+            .getDeclaringClass() != MinigameEventListener.class
+            || (single != null && single.isHandledBy(listener));
+      } catch (NoSuchMethodException e) {
+        return true;
+      }
+    }
+  }
+
+  private static final EventType[] EVENT_TYPES = EventType.values();
+  private static final Registration[] NO_LISTENERS = new Registration[0];
+
+  private static final int DEFAULT_ASYNC_WORKERS = 2;
+  private static final int DEFAULT_ASYNC_QUEUE_CAPACITY = 1024;
+  private static final long ASYNC_SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+  private final @NotNull Logger logger;
+  private final int asyncWorkers;
+  private final int asyncQueueCapacity;
+  private final List<Registration> registrations = new ArrayList<>();
+  private volatile Registration[][] listenersByType = emptyTable();
+  private volatile Registration[][] asyncListenersByType = emptyTable();
+  private volatile @Nullable AsyncListenerLane asyncLane;
+  private long registrationCounter;
+
+  public MinigameEventBus(@NotNull Logger logger) {
+    this(logger, DEFAULT_ASYNC_WORKERS, DEFAULT_ASYNC_QUEUE_CAPACITY);
+  }
+
+  public MinigameEventBus(@NotNull Logger logger, int asyncWorkers, int asyncQueueCapacity) {
+    this.logger = Objects.requireNonNull(logger, "Logger cannot be null");
+    this.asyncWorkers = asyncWorkers;
+    this.asyncQueueCapacity = asyncQueueCapacity;
+  }
+
+  /**
+   * Register a listener. Listeners with a lower priority are called first;
+   * listeners with equal priority are called in registration order.
+   */
+  public void register(@NotNull Plugin plugin, @NotNull MinigameEventListener listener,
+      @NotNull EventPriority priority) {
+    register(plugin, listener, priority, false);
+  }
+
+  /**
+   * Register a listener, optionally delivered asynchronously. Asynchronous
+   * listeners are called in priority order among themselves, after the event
+   * has been fired on the calling thread. They may only read plain values such as
+   * the minigame ID and player UUIDs; see {@link MinigameEventListener}.
+   */
+  public synchronized void register(@NotNull Plugin plugin, @NotNull MinigameEventListener listener,
+      @NotNull EventPriority priority, boolean async) {
+    Objects.requireNonNull(plugin, "Plugin cannot be null");
+    Objects.requireNonNull(listener, "Listener cannot be null");
+    Objects.requireNonNull(priority, "Priority cannot be null");
+    if (async && asyncLane == null) {
+      asyncLane = new AsyncListenerLane(logger, asyncWorkers, asyncQueueCapacity);
+    }
+    registrations.removeIf(r -> r.plugin.equals(plugin) && r.listener == listener);
+    registrations.add(new Registration(plugin, listener, priority, async, registrationCounter++));
+    rebuild();
+  }
+
+  /**
+   * Unregister a listener previously registered by the given plugin
+   *
+   * @return true if the listener was registered
+   */
+  public synchronized boolean unregister(@NotNull Plugin plugin, @NotNull MinigameEventListener listener) {
+    return removeWhere(r -> r.plugin.equals(plugin) && r.listener == listener);
+  }
+
+  /**
+   * Unregister every listener owned by a plugin
+   *
+   * @return true if any listener was removed
+   */
+  public synchronized boolean unregisterAll(@NotNull Plugin plugin) {
+    return removeWhere(r -> r.plugin.equals(plugin));
+  }
+
+  /**
+   * Get the number of registered listeners
+   */
+  public synchronized int getListenerCount() {
+    return registrations.size();
+  }
+
+  /**
+   * Get the number of events queued for asynchronous listeners
+   */
+  public long getAsyncSubmitted() {
+    AsyncListenerLane lane = asyncLane;
+    return lane != null ? lane.getSubmitted() : 0;
+  }
+
+  /**
+   * Get the number of events delivered to asynchronous listeners
+   */
+  public long getAsyncDelivered() {
+    AsyncListenerLane lane = asyncLane;
+    return lane != null ? lane.getDelivered() : 0;
+  }
+
+  /**
+   * Get the number of events dropped because the asynchronous queue was full
+   */
+  public long getAsyncDropped() {
+    AsyncListenerLane lane = asyncLane;
+    return lane != null ? lane.getDropped() : 0;
+  }
+
+  /**
+   * Get the number of events currently waiting for asynchronous delivery
+   */
+  public int getAsyncQueueDepth() {
+    AsyncListenerLane lane = asyncLane;
+    return lane != null ? lane.getQueueDepth() : 0;
+  }
+
+  /**
+   * Get a summary of asynchronous delivery metrics
+   */
+  public String getAsyncSummary() {
+    return String.format(
+        "Async listeners - Submitted: %d, Delivered: %d, Dropped: %d, Queued: %d",
+        getAsyncSubmitted(),
+        getAsyncDelivered(),
+        getAsyncDropped(),
+        getAsyncQueueDepth());
+  }
+
+  /**
+   * Stop asynchronous delivery, waiting briefly for queued events
+   */
+  public synchronized void shutdown() {
+    AsyncListenerLane lane = asyncLane;
+    if (lane != null) {
+      asyncLane = null;
+      lane.shutdown(ASYNC_SHUTDOWN_TIMEOUT_MILLIS);
+    }
+  }
+
+  public void fireMinigameCreated(@NotNull Minigame minigame) {
+    dispatch(EventType.CREATED, minigame, l -> l.onMinigameCreated(minigame));
+  }
+
+  public void fireMinigameStart(@NotNull Minigame minigame) {
+    dispatch(EventType.STARTED, minigame, l -> l.onMinigameStart(minigame));
+  }
+
+  public void fireMinigameEnd(@NotNull Minigame minigame) {
+    dispatch(EventType.ENDED, minigame, l -> l.onMinigameEnd(minigame));
+  }
+
+  public void firePlayerJoin(@NotNull Player player, @NotNull Minigame minigame) {
+    dispatch(EventType.PLAYER_JOIN, minigame, l -> l.onPlayerJoinMinigame(player, minigame));
+  }
+
+  public void firePlayerLeave(@NotNull Player player, @NotNull Minigame minigame) {
+    dispatch(EventType.PLAYER_LEAVE, minigame, l -> l.onPlayerLeaveMinigame(player, minigame));
+  }
+
+  /**
+   * Fire one event for a group of players joining together
+   */
+  public void firePlayersJoin(@NotNull List<Player> players, @NotNull Minigame minigame) {
+    if (players.isEmpty()) {
+      return;
+    }
+    List<Player> group = List.copyOf(players);
+    dispatch(EventType.PLAYERS_JOIN, minigame, l -> l.onPlayersJoinMinigame(group, minigame));
+  }
+
+  /**
+   * Fire one event for a group of players leaving together
+   */
+  public void firePlayersLeave(@NotNull List<Player> players, @NotNull Minigame minigame) {
+    if (players.isEmpty()) {
+      return;
+    }
+    List<Player> group = List.copyOf(players);
+    dispatch(EventType.PLAYERS_LEAVE, minigame, l -> l.onPlayersLeaveMinigame(group, minigame));
+  }
+
+  public void firePlayerEliminated(@NotNull Player player, @NotNull Minigame minigame, @NotNull String reason) {
+    dispatch(EventType.PLAYER_ELIMINATED, minigame, l -> l.onPlayerEliminated(player, minigame, reason));
+  }
+
+  public void fireCountdownStart(@NotNull Minigame minigame) {
+    dispatch(EventType.COUNTDOWN_START, minigame, l -> l.onCountdownStart(minigame));
+  }
+
+  /**
+   * Call the synchronous listeners of an event, then queue it for the asynchronous ones.
+   * Asynchronous listeners get the same live objects; see {@link MinigameEventListener}.
+   */
+  private void dispatch(EventType type, Minigame minigame, Consumer<MinigameEventListener> call) {
+    deliver(listenersByType[type.ordinal()], type, call);
+
+    Registration[] async = asyncListenersByType[type.ordinal()];
+    if (async.length > 0) {
+      submitAsync(minigame, () -> deliver(async, type, call));
+    }
+  }
+
+  private void deliver(Registration[] listeners, EventType type, Consumer<MinigameEventListener> call) {
+    for (Registration r : listeners) {
+      try {
+        call.accept(r.listener);
+      } catch (Exception e) {
+        logFailure(r, type, e);
+      }
+    }
+  }
+
+  private void submitAsync(Minigame minigame, Runnable delivery) {
+    AsyncListenerLane lane = asyncLane;
+    if (lane != null) {
+      lane.submit(minigame.getId(), delivery);
+    }
+  }
+
+  private boolean removeWhere(Predicate<Registration> filter) {
+    boolean removed = registrations.removeIf(filter);
+    if (removed) {
+      rebuild();
+    }
+    return removed;
+  }
+
+  private void rebuild() {
+    List<Registration> sorted = new ArrayList<>(registrations);
+    sorted.sort(Comparator.<Registration>comparingInt(r -> r.priority.getSlot()).thenComparingLong(r -> r.order));
+
+    Registration[][] syncTable = new Registration[EVENT_TYPES.length][];
+    Registration[][] asyncTable = new Registration[EVENT_TYPES.length][];
+    for (EventType type : EVENT_TYPES) {
+      syncTable[type.ordinal()] = sorted.stream()
+          .filter(r -> !r.async && r.handles[type.ordinal()])
+          .toArray(Registration[]::new);
+      asyncTable[type.ordinal()] = sorted.stream()
+          .filter(r -> r.async && r.handles[type.ordinal()])
+          .toArray(Registration[]::new);
+    }
+    listenersByType = syncTable;
+    asyncListenersByType = asyncTable;
+  }
+
+  private void logFailure(Registration registration, EventType type, Exception e) {
+    logger.warning("Error in global minigame listener from " + registration.plugin.getName() +
+        " during " + type.methodName + ": " + e.getMessage());
+  }
+
+  private static Registration[][] emptyTable() {
+    Registration[][] table = new Registration[EVENT_TYPES.length][];
+    Arrays.fill(table, NO_LISTENERS);
+    return table;
+  }
+
+  private static final class Registration {
+    private final Plugin plugin;
+    private final MinigameEventListener listener;
+    private final EventPriority priority;
+    private final boolean async;
+    private final long order;
+    private final boolean[] handles = new boolean[EVENT_TYPES.length];
+
+    private Registration(Plugin plugin, MinigameEventListener listener, EventPriority priority, boolean async,
+        long order) {
+      this.plugin = plugin;
+      this.listener = listener;
+      this.priority = priority;
+      this.async = async;
+      this.order = order;
+      for (EventType type : EVENT_TYPES) {
+        handles[type.ordinal()] = type.isHandledBy(listener);
+      }
+    }
+  }
+}
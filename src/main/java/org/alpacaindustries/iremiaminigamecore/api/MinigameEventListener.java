@@ -3,9 +3,19 @@ package org.alpacaindustries.iremiaminigamecore.api;
 import org.alpacaindustries.iremiaminigamecore.minigame.Minigame;
 import org.bukkit.entity.Player;
 
+import java.util.List;
+
 /**
  * Event listener interface for external plugins to hook into minigame events
  *
+ * <p>Listeners registered as asynchronous run on a worker thread, after the event has
+ * already been handled on the game's thread. They receive the live {@link Minigame} and
+ * {@link Player} objects, not copies: the game may have moved on and the players may have
+ * left. Such listeners should copy what they need (the minigame ID, player UUIDs and names)
+ * at the start of the callback, must not call the Bukkit API on the players or worlds, and
+ * must not change the minigame. Schedule back to the main thread, or submit to
+ * {@link Minigame#getMailbox()}, for anything else.
+ *
  * @since 1.0.0
  */
 public interface MinigameEventListener {
@@ -52,6 +62,34 @@ public interface MinigameEventListener {
   default void onPlayerLeaveMinigame(Player player, Minigame minigame) {
   }
 
+  /**
+   * Called once when a group of players joins a minigame together.
+   * By default this calls {@link #onPlayerJoinMinigame} for each player.
+   *
+   * @param players  The players who joined
+   * @param minigame The minigame they joined
+   * @since 1.1.0
+   */
+  default void onPlayersJoinMinigame(List<Player> players, Minigame minigame) {
+    for (Player player : players) {
+      onPlayerJoinMinigame(player, minigame);
+    }
+  }
+
+  /**
+   * Called once when a group of players leaves a minigame together.
+   * By default this calls {@link #onPlayerLeaveMinigame} for each player.
+   *
+   * @param players  The players who left
+   * @param minigame The minigame they left
+   * @since 1.1.0
+   */
+  default void onPlayersLeaveMinigame(List<Player> players, Minigame minigame) {
+    for (Player player : players) {
+      onPlayerLeaveMinigame(player, minigame);
+    }
+  }
+
   /**
    * Called when a player is eliminated from a minigame
    *
@@ -1,14 +1,27 @@
 package org.alpacaindustries.iremiaminigamecore.api.impl;
 
+import kotlin.Unit;
+import kotlin.coroutines.Continuation;
+import kotlinx.coroutines.CoroutineScope;
+import org.alpacaindustries.iremiaminigamecore.arena.ArenaSlot;
+import org.alpacaindustries.iremiaminigamecore.minigame.ArenaMailbox;
 import org.alpacaindustries.iremiaminigamecore.minigame.Minigame;
 import org.alpacaindustries.iremiaminigamecore.minigame.MinigameState;
+import org.alpacaindustries.iremiaminigamecore.replay.ReplayRecorder;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * Wrapper that adds event notifications to externally created minigames
@@ -19,6 +32,7 @@ class EventNotifyingMinigame extends Minigame {
 
   private final Minigame delegate;
   private final IremiaMinigameAPIImpl api;
+  private final Map<Consumer<Minigame>, Consumer<Minigame>> endListeners = new ConcurrentHashMap<>();
 
   public EventNotifyingMinigame(Minigame delegate, IremiaMinigameAPIImpl api) {
     super(delegate.getId(), delegate.getDisplayName(), delegate.getManager());
@@ -31,31 +45,33 @@ class EventNotifyingMinigame extends Minigame {
     setAllowJoinDuringGame(delegate.isAllowJoinDuringGame());
     setSpawnPoint(delegate.getSpawnPoint());
 
+    // The delegate may defer its start until its spawn chunks are loaded, so the
+    // event follows its state change to RUNNING rather than the start() call
+    delegate.addStartListener(started -> api.getEventBus().fireMinigameStart(this));
   }
 
   @Override
   public void initialize() {
     delegate.initialize();
-    api.notifyListeners("created", this);
+    api.getEventBus().fireMinigameCreated(this);
   }
 
   @Override
   public void start() {
     delegate.start();
-    api.notifyListeners("started", this);
   }
 
   @Override
   public void end() {
     delegate.end();
-    api.notifyListeners("ended", this);
+    api.getEventBus().fireMinigameEnd(this);
   }
 
   @Override
   public boolean addPlayer(@NotNull Player player) {
     boolean result = delegate.addPlayer(player);
     if (result) {
-      api.notifyListeners("playerJoin", player, this);
+      api.getEventBus().firePlayerJoin(player, this);
     }
     return result;
   }
@@ -63,14 +79,109 @@ class EventNotifyingMinigame extends Minigame {
   @Override
   public boolean removePlayer(@NotNull Player player) {
     boolean result = delegate.removePlayer(player);
-    api.notifyListeners("playerLeave", player, this);
+    api.getEventBus().firePlayerLeave(player, this);
     return result;
   }
 
+  @Override
+  public @NotNull List<Player> addPlayers(@NotNull Collection<? extends Player> players) {
+    List<Player> joined = delegate.addPlayers(players);
+    api.getEventBus().firePlayersJoin(joined, this);
+    return joined;
+  }
+
+  @Override
+  public @NotNull List<Player> removePlayers(@NotNull Collection<? extends Player> players) {
+    List<Player> removed = delegate.removePlayers(players);
+    api.getEventBus().firePlayersLeave(removed, this);
+    return removed;
+  }
+
   @Override
   public void startCountdown() {
     delegate.startCountdown();
-    api.notifyListeners("countdownStart", this);
+    api.getEventBus().fireCountdownStart(this);
+  }
+
+  @Override
+  public void addEndListener(@NotNull Consumer<Minigame> listener) {
+    // The delegate ends itself, so its listeners are the ones that run
+    Consumer<Minigame> forwarding = ended -> listener.accept(this);
+    endListeners.put(listener, forwarding);
+    delegate.addEndListener(forwarding);
+  }
+
+  @Override
+  public boolean removeEndListener(@NotNull Consumer<Minigame> listener) {
+    Consumer<Minigame> forwarding = endListeners.remove(listener);
+    return forwarding != null && delegate.removeEndListener(forwarding);
+  }
+
+  @Override
+  public @NotNull ArenaMailbox getMailbox() {
+    // Share the delegate's queue, so its own timers and calls through the wrapper stay in order
+    return delegate.getMailbox();
+  }
+
+  @Override
+  public @Nullable String getMatchId() {
+    return delegate.getMatchId();
+  }
+
+  @Override
+  public @Nullable ReplayRecorder getReplayRecorder() {
+    return delegate.getReplayRecorder();
+  }
+
+  @Override
+  public @Nullable ArenaSlot getArena() {
+    return delegate.getArena();
+  }
+
+  @Override
+  public void assignArena(@NotNull ArenaSlot slot) {
+    // Players are teleported by the delegate, so it owns the copy
+    delegate.assignArena(slot);
+    setSpawnPoint(delegate.getSpawnPoint());
+  }
+
+  @Override
+  public void releaseArena() {
+    delegate.releaseArena();
+    setSpawnPoint(delegate.getSpawnPoint());
+  }
+
+  @Override
+  public @NotNull CoroutineScope getCoroutineScope() {
+    return delegate.getCoroutineScope();
+  }
+
+  @Override
+  public @Nullable Object awaitPlayers(int count, @NotNull Continuation<? super Unit> continuation) {
+    // Joins happen on the delegate, so only its waiters are notified
+    return delegate.awaitPlayers(count, continuation);
+  }
+
+  @Override
+  public boolean isReusable() {
+    return delegate.isReusable();
+  }
+
+  @Override
+  public @NotNull List<Set<UUID>> getFinalPlacements() {
+    return delegate.getFinalPlacements();
+  }
+
+  @Override
+  public @NotNull Set<UUID> getPlayers() {
+    // Players join the delegate, the wrapper's own set stays empty
+    return delegate.getPlayers();
+  }
+
+  @Override
+  public @NotNull CompletableFuture<?> getRollbackDone() {
+    // The delegate records and restores the blocks
+    return delegate.getRollbackDone();
   }
 
   // Delegate all other methods to the wrapped minigame
@@ -99,6 +210,12 @@ class EventNotifyingMinigame extends Minigame {
     // This will be called by the delegate
   }
 
+  @Override
+  protected void onRecycle() {
+    endListeners.clear();
+    delegate.recycle(getId());
+  }
+
   // These methods access the delegate's properties since they are final in the parent class
   @NotNull
   public Set<UUID> getDelegatePlayes() {
@@ -119,11 +236,6 @@ class EventNotifyingMinigame extends Minigame {
     return Optional.ofNullable(delegate.getSpawnPoint());
   }
 
-  // Add method to expose elimination events
-  public void notifyPlayerEliminated(Player player, String reason) {
-    api.notifyListeners("playerEliminated", player, this, reason);
-  }
-
   // Expose the original minigame for advanced access
   public Minigame getDelegate() {
     return delegate;
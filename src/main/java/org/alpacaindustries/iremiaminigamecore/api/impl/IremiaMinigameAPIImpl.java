@@ -1,6 +1,7 @@
 package org.alpacaindustries.iremiaminigamecore.api.impl;
 
 import org.alpacaindustries.iremiaminigamecore.api.IremiaMinigameAPI;
+import org.alpacaindustries.iremiaminigamecore.api.MinigameEventBus;
 import org.alpacaindustries.iremiaminigamecore.api.MinigameEventListener;
 import org.alpacaindustries.iremiaminigamecore.api.MinigameTypeInfo;
 import org.alpacaindustries.iremiaminigamecore.minigame.AddPlayerResult;
@@ -8,6 +9,7 @@ import org.alpacaindustries.iremiaminigamecore.minigame.Minigame;
 import org.alpacaindustries.iremiaminigamecore.minigame.MinigameFactory;
 import org.alpacaindustries.iremiaminigamecore.minigame.MinigameManager;
 import org.bukkit.entity.Player;
+import org.bukkit.event.EventPriority;
 import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -22,7 +24,7 @@ import java.util.logging.Logger;
  */
 public class IremiaMinigameAPIImpl implements IremiaMinigameAPI {
 
-  private static final String API_VERSION = "1.0.0";
+  private static final String API_VERSION = "1.1.0";
 
   private final @NotNull MinigameManager minigameManager;
   private final @NotNull Logger logger;
@@ -32,11 +34,12 @@ public class IremiaMinigameAPIImpl implements IremiaMinigameAPI {
   private final Map<String, MinigameTypeInfo> typeInfoMap = new ConcurrentHashMap<>();
 
   // Global event listeners
-  private final Map<Plugin, Set<MinigameEventListener>> globalListeners = new ConcurrentHashMap<>();
+  private final @NotNull MinigameEventBus eventBus;
 
   public IremiaMinigameAPIImpl(@NotNull MinigameManager minigameManager, @NotNull Logger logger) {
     this.minigameManager = Objects.requireNonNull(minigameManager, "MinigameManager cannot be null");
     this.logger = Objects.requireNonNull(logger, "Logger cannot be null");
+    this.eventBus = minigameManager.getEventBus();
   }
 
   @Override
@@ -167,23 +170,30 @@ public class IremiaMinigameAPIImpl implements IremiaMinigameAPI {
 
   @Override
   public void registerGlobalMinigameListener(@NotNull Plugin plugin, @NotNull MinigameEventListener listener) {
+    registerGlobalMinigameListener(plugin, listener, EventPriority.NORMAL);
+  }
+
+  @Override
+  public void registerGlobalMinigameListener(@NotNull Plugin plugin, @NotNull MinigameEventListener listener,
+      @NotNull EventPriority priority) {
+    registerGlobalMinigameListener(plugin, listener, priority, false);
+  }
+
+  @Override
+  public void registerGlobalMinigameListener(@NotNull Plugin plugin, @NotNull MinigameEventListener listener,
+      @NotNull EventPriority priority, boolean async) {
     Objects.requireNonNull(plugin, "Plugin cannot be null");
     Objects.requireNonNull(listener, "Listener cannot be null");
-    globalListeners.computeIfAbsent(plugin, k -> ConcurrentHashMap.newKeySet()).add(listener);
-    logger.info("Registered global minigame listener for plugin " + plugin.getName());
+    Objects.requireNonNull(priority, "Priority cannot be null");
+    eventBus.register(plugin, listener, priority, async);
+    logger.info("Registered " + (async ? "async " : "") + "global minigame listener for plugin " + plugin.getName());
   }
 
   @Override
   public void unregisterGlobalMinigameListener(@NotNull Plugin plugin, @NotNull MinigameEventListener listener) {
     Objects.requireNonNull(plugin, "Plugin cannot be null");
     Objects.requireNonNull(listener, "Listener cannot be null");
-    Set<MinigameEventListener> listeners = globalListeners.get(plugin);
-    if (listeners != null) {
-      listeners.remove(listener);
-      if (listeners.isEmpty()) {
-        globalListeners.remove(plugin);
-      }
-    }
+    eventBus.unregister(plugin, listener);
   }
 
   /**
@@ -204,32 +214,15 @@ public class IremiaMinigameAPIImpl implements IremiaMinigameAPI {
     }
 
     // Remove all global listeners
-    globalListeners.remove(plugin);
+    eventBus.unregisterAll(plugin);
 
     logger.info("Cleaned up all minigame registrations for plugin " + plugin.getName());
   }
 
   /**
-   * Notify all global listeners of an event
+   * Get the typed bus used to notify global listeners
    */
-  public void notifyListeners(@NotNull String eventType, Object... args) {
-    Objects.requireNonNull(eventType, "eventType cannot be null");
-    for (Set<MinigameEventListener> listeners : globalListeners.values()) {
-      for (MinigameEventListener listener : listeners) {
-        try {
-          switch (eventType) {
-            case "created" -> listener.onMinigameCreated((Minigame) args[0]);
-            case "started" -> listener.onMinigameStart((Minigame) args[0]);
-            case "ended" -> listener.onMinigameEnd((Minigame) args[0]);
-            case "playerJoin" -> listener.onPlayerJoinMinigame((Player) args[0], (Minigame) args[1]);
-            case "playerLeave" -> listener.onPlayerLeaveMinigame((Player) args[0], (Minigame) args[1]);
-            case "playerEliminated" -> listener.onPlayerEliminated((Player) args[0], (Minigame) args[1], (String) args[2]);
-            case "countdownStart" -> listener.onCountdownStart((Minigame) args[0]);
-          }
-        } catch (Exception e) {
-          logger.warning("Error in global minigame listener: " + e.getMessage());
-        }
-      }
-    }
+  public @NotNull MinigameEventBus getEventBus() {
+    return eventBus;
   }
 }
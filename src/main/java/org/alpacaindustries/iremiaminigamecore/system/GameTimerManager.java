@@ -36,14 +36,10 @@ public class GameTimerManager {
    * Create a repeating event timer
    */
   public CountdownTimer createEventTimer(String name, int intervalSeconds, Runnable onEvent) {
+    // Repeats on the same scheduled task instead of restarting every cycle
     CountdownTimer timer = new CountdownTimer(plugin, intervalSeconds)
-        .onFinish(() -> {
-          onEvent.run();
-          // Restart the timer for continuous events
-          if (timers.containsKey(name)) {
-            timers.get(name).start();
-          }
-        });
+        .onFinish(onEvent)
+        .repeating(true);
 
     timers.put(name, timer);
     return timer;
@@ -69,6 +65,44 @@ public class GameTimerManager {
     }
   }
 
+  /**
+   * Pause a timer by name
+   */
+  public void pauseTimer(String name) {
+    CountdownTimer timer = timers.get(name);
+    if (timer != null) {
+      timer.pause();
+    }
+  }
+
+  /**
+   * Resume a paused timer by name
+   */
+  public void resumeTimer(String name) {
+    CountdownTimer timer = timers.get(name);
+    if (timer != null) {
+      timer.resume();
+    }
+  }
+
+  /**
+   * Pause all timers
+   */
+  public void pauseAllTimers() {
+    for (CountdownTimer timer : timers.values()) {
+      timer.pause();
+    }
+  }
+
+  /**
+   * Resume all paused timers
+   */
+  public void resumeAllTimers() {
+    for (CountdownTimer timer : timers.values()) {
+      timer.resume();
+    }
+  }
+
   /**
    * Stop all timers
    */
@@ -0,0 +1,136 @@
+package org.alpacaindustries.iremiaminigamecore.system;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.util.BoundingBox;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Filtered movement handling for minigames
+ * Discards rotation-only and same-block moves before any game logic runs, then
+ * dispatches Y-threshold and region callbacks for the moves that remain
+ */
+public class MovementPipeline {
+
+  private volatile Predicate<Player> filter = player -> true;
+  private volatile YThreshold[] thresholds = new YThreshold[0];
+  private volatile Region[] regions = new Region[0];
+
+  /**
+   * Set the predicate a player must pass before any callback runs
+   * Only evaluated for moves that changed block
+   */
+  public MovementPipeline filter(Predicate<Player> filter) {
+    this.filter = filter;
+    return this;
+  }
+
+  /**
+   * Register a callback for players at or below the given block Y level
+   * Called on every block change there that passes the filter, not only when crossing the level
+   */
+  public synchronized MovementPipeline onYThreshold(int y, Consumer<Player> callback) {
+    YThreshold[] updated = Arrays.copyOf(thresholds, thresholds.length + 1);
+    updated[thresholds.length] = new YThreshold(y, callback);
+    thresholds = updated;
+    return this;
+  }
+
+  /**
+   * Register callbacks for players entering and leaving a region
+   */
+  public synchronized MovementPipeline onRegion(World world, BoundingBox box, Consumer<Player> onEnter,
+      @Nullable Consumer<Player> onLeave) {
+    Region[] updated = Arrays.copyOf(regions, regions.length + 1);
+    updated[regions.length] = new Region(world, box.clone(), onEnter, onLeave);
+    regions = updated;
+    return this;
+  }
+
+  /**
+   * Register a callback for players entering a region
+   */
+  public MovementPipeline onRegionEnter(World world, BoundingBox box, Consumer<Player> onEnter) {
+    return onRegion(world, box, onEnter, null);
+  }
+
+  /**
+   * Remove all registered callbacks
+   */
+  public synchronized void clear() {
+    thresholds = new YThreshold[0];
+    regions = new Region[0];
+  }
+
+  /**
+   * Run a move event through the pipeline
+   */
+  public void handle(PlayerMoveEvent event) {
+    // Head rotation and movement within the same block never trigger callbacks
+    if (!event.hasChangedPosition() || !event.hasChangedBlock()) {
+      return;
+    }
+
+    YThreshold[] currentThresholds = thresholds;
+    Region[] currentRegions = regions;
+    if (currentThresholds.length == 0 && currentRegions.length == 0) {
+      return;
+    }
+
+    Player player = event.getPlayer();
+    if (!filter.test(player)) {
+      return;
+    }
+
+    Location from = event.getFrom();
+    Location to = event.getTo();
+
+    checkThresholds(currentThresholds, player, to.getBlockY());
+
+    for (Region region : currentRegions) {
+      boolean wasInside = region.contains(from);
+      boolean isInside = region.contains(to);
+      if (!wasInside && isInside) {
+        region.onEnter().accept(player);
+      } else if (wasInside && !isInside && region.onLeave() != null) {
+        region.onLeave().accept(player);
+      }
+    }
+  }
+
+  /**
+   * Run the Y-threshold callbacks for a player's current position, e.g. for players
+   * already below a threshold when the filter starts letting them through
+   */
+  public void check(Player player) {
+    YThreshold[] currentThresholds = thresholds;
+    if (currentThresholds.length > 0 && filter.test(player)) {
+      checkThresholds(currentThresholds, player, player.getLocation().getBlockY());
+    }
+  }
+
+  private static void checkThresholds(YThreshold[] currentThresholds, Player player, int y) {
+    for (YThreshold threshold : currentThresholds) {
+      if (y <= threshold.y()) {
+        threshold.callback().accept(player);
+      }
+    }
+  }
+
+  private record YThreshold(int y, Consumer<Player> callback) {
+  }
+
+  private record Region(World world, BoundingBox box, Consumer<Player> onEnter,
+      @Nullable Consumer<Player> onLeave) {
+
+    boolean contains(Location location) {
+      return world.equals(location.getWorld()) && box.contains(location.getX(), location.getY(), location.getZ());
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package org.alpacaindustries.iremiaminigamecore.system;
 
+import io.papermc.lib.PaperLib;
 import org.bukkit.GameMode;
 import org.bukkit.Location;
 import org.bukkit.Material;
@@ -7,6 +8,8 @@ import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.potion.PotionEffect;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Utility class for managing player state in minigames
  * Provides standardized methods for preparing players and cleaning up state
@@ -21,9 +24,19 @@ public class PlayerManager {
   }
 
   /**
-   * Prepare a player for minigame participation
+   * Prepare a player for minigame participation, teleporting them asynchronously
    */
   public static void preparePlayer(Player player, Location spawnLocation) {
+    preparePlayerAsync(player, spawnLocation);
+  }
+
+  /**
+   * Prepare a player for minigame participation and teleport them asynchronously,
+   * loading the destination chunk off the main thread
+   *
+   * @return future completed with whether the teleport succeeded, or true right away without a spawn location
+   */
+  public static CompletableFuture<Boolean> preparePlayerAsync(Player player, Location spawnLocation) {
     player.setGameMode(GameMode.ADVENTURE);
     player.setHealth(20.0);
     player.setFoodLevel(20);
@@ -39,9 +52,10 @@ public class PlayerManager {
     // Give basic food
     player.getInventory().addItem(new ItemStack(Material.COOKED_BEEF, 5));
 
-    if (spawnLocation != null) {
-      player.teleport(spawnLocation);
+    if (spawnLocation == null) {
+      return CompletableFuture.completedFuture(true);
     }
+    return PaperLib.teleportAsync(player, spawnLocation);
   }
 
   /**
@@ -1,17 +1,62 @@
 package org.alpacaindustries.iremiaminigamecore.util;
 
+import org.alpacaindustries.iremiaminigamecore.IremiaMinigameCorePlugin;
 import org.bukkit.Bukkit;
 import org.bukkit.plugin.Plugin;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 /**
  * Thread-safe async operation utilities with automatic exception handling
  * Bridges Bukkit's scheduler with CompletableFuture for modern async patterns
+ *
+ * Async work runs on virtual threads, so blocking I/O (stats writes, HTTP calls,
+ * file loads) does not tie up a platform thread per call. Results handed back to
+ * the main thread go through the core plugin's {@link MainThreadQueue} and are
+ * run together once per tick.
  */
 public class AsyncUtils {
 
+  private static volatile ExecutorService ioExecutor;
+
+  /**
+   * Get the shared virtual-thread executor used for async work
+   */
+  public static ExecutorService getIoExecutor() {
+    ExecutorService executor = ioExecutor;
+    if (executor == null || executor.isShutdown()) {
+      synchronized (AsyncUtils.class) {
+        executor = ioExecutor;
+        if (executor == null || executor.isShutdown()) {
+          executor = Executors.newThreadPerTaskExecutor(
+              Thread.ofVirtual().name("IremiaMinigameCore-io-", 0).factory());
+          ioExecutor = executor;
+        }
+      }
+    }
+    return executor;
+  }
+
+  /**
+   * Get an executor that runs tasks on the main thread, batched once per tick
+   * when the core plugin is enabled
+   */
+  public static Executor mainThreadExecutor(Plugin plugin) {
+    Plugin owner = plugin instanceof IremiaMinigameCorePlugin
+        ? plugin
+        : Bukkit.getPluginManager().getPlugin("IremiaMinigameCore");
+    if (owner instanceof IremiaMinigameCorePlugin core && core.isEnabled()) {
+      return core.getMainThreadQueue();
+    }
+    GameScheduler scheduler = new GameScheduler(plugin);
+    return task -> scheduler.runGlobal(task, 0);
+  }
+
   /**
    * Execute supplier asynchronously with exception safety
    * Automatically handles thread context switching and error propagation
@@ -19,7 +64,7 @@ public class AsyncUtils {
   public static <T> CompletableFuture<T> runAsync(Plugin plugin, Supplier<T> task) {
     CompletableFuture<T> future = new CompletableFuture<>();
 
-    Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+    getIoExecutor().execute(() -> {
       try {
         T result = task.get();
         future.complete(result);
@@ -37,7 +82,7 @@ public class AsyncUtils {
   public static CompletableFuture<Void> runAsync(Plugin plugin, Runnable task) {
     CompletableFuture<Void> future = new CompletableFuture<>();
 
-    Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+    getIoExecutor().execute(() -> {
       try {
         task.run();
         future.complete(null);
@@ -50,12 +95,48 @@ public class AsyncUtils {
   }
 
   /**
-   * Run a task on the main thread after async completion
+   * Run a task on the main thread (the global region on Folia) after async completion
    */
   public static <T> CompletableFuture<T> runAsyncThenSync(Plugin plugin, Supplier<T> asyncTask, Runnable syncTask) {
     return runAsync(plugin, asyncTask).thenApply(result -> {
-      Bukkit.getScheduler().runTask(plugin, syncTask);
+      mainThreadExecutor(plugin).execute(syncTask);
       return result;
     });
   }
+
+  /**
+   * Get a future that completes on the main thread once the given future completes
+   */
+  public static <T> CompletableFuture<T> completeOnMainThread(Plugin plugin, CompletableFuture<T> future) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    Executor mainThread = mainThreadExecutor(plugin);
+    future.whenComplete((value, error) -> mainThread.execute(() -> {
+      if (error != null) {
+        result.completeExceptionally(error);
+      } else {
+        result.complete(value);
+      }
+    }));
+    return result;
+  }
+
+  /**
+   * Stop accepting async work and wait briefly for running tasks
+   */
+  public static void shutdown(long timeoutMillis) {
+    ExecutorService executor;
+    synchronized (AsyncUtils.class) {
+      executor = ioExecutor;
+      ioExecutor = null;
+    }
+    if (executor == null) {
+      return;
+    }
+    executor.shutdown();
+    try {
+      executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
 }
@@ -1,20 +1,24 @@
 package org.alpacaindustries.iremiaminigamecore.util;
 
 import org.alpacaindustries.iremiaminigamecore.IremiaMinigameCorePlugin;
-import org.bukkit.scheduler.BukkitRunnable;
-import org.bukkit.scheduler.BukkitTask;
 
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
 /**
  * Chainable countdown timer with callback support for minigame events
  * Provides fluent API for timer configuration and automatic task cleanup
+ * Runs on the plugin's shared tick scheduler instead of its own Bukkit task
  */
 public class CountdownTimer {
+  private static final long TICKS_PER_SECOND = 20L;
+
   private final IremiaMinigameCorePlugin plugin;
   private final int startSeconds;
   private int secondsLeft;
-  private BukkitTask task;
+  private boolean repeating;
+  private Executor executor;
+  private volatile TickScheduler.Handle handle;
 
   private Consumer<Integer> onCount;
   private Runnable onFinish;
@@ -41,43 +45,83 @@ public class CountdownTimer {
     return this;
   }
 
+  /**
+   * Restart the countdown automatically each time it finishes, so onFinish
+   * runs once every interval without scheduling a new task
+   */
+  public CountdownTimer repeating(boolean repeating) {
+    this.repeating = repeating;
+    return this;
+  }
+
+  /**
+   * Run the countdown callbacks through an executor instead of the tick scheduler's thread,
+   * e.g. {@code minigame.getArenaExecutor()} so they run on the arena's region on Folia
+   */
+  public CountdownTimer executor(Executor executor) {
+    this.executor = executor;
+    return this;
+  }
+
   /**
    * Start the countdown with automatic task management
    * Prevents multiple concurrent timers from same instance
    */
   public CountdownTimer start() {
     // Cancel any existing task
-    if (task != null) {
-      task.cancel();
+    if (handle != null) {
+      handle.cancel();
     }
 
     // Reset seconds
     this.secondsLeft = startSeconds;
 
-    // Create new task
-    task = new BukkitRunnable() {
-      @Override
-      public void run() {
-        // Call count callback if set
-        if (onCount != null) {
-          onCount.accept(secondsLeft);
-        }
+    // Run every second (20 ticks), starting on the next tick
+    handle = plugin.getTickScheduler().scheduleRepeating(this::dispatch, 1L, TICKS_PER_SECOND);
 
-        // Decrement counter
-        secondsLeft--;
+    return this;
+  }
 
-        // Check if finished
-        if (secondsLeft < 0) {
-          cancel();
-          if (onFinish != null) {
-            onFinish.run();
-          }
-          task = null;
-        }
+  private void dispatch() {
+    Executor target = executor;
+    if (target == null) {
+      tick();
+      return;
+    }
+    TickScheduler.Handle current = handle;
+    target.execute(() -> {
+      // Skip seconds that were still in flight when the countdown was stopped or restarted
+      if (current != null && handle == current) {
+        tick();
       }
-    }.runTaskTimer(plugin, 0L, 20L); // Run every second (20 ticks)
+    });
+  }
 
-    return this;
+  private void tick() {
+    // Call count callback if set
+    if (onCount != null) {
+      onCount.accept(secondsLeft);
+    }
+
+    // Decrement counter
+    secondsLeft--;
+
+    // Check if finished
+    if (secondsLeft < 0) {
+      if (repeating) {
+        // The finishing second doubles as the first second of the next cycle
+        secondsLeft = Math.max(startSeconds - 1, 0);
+      } else {
+        TickScheduler.Handle finished = handle;
+        handle = null;
+        if (finished != null) {
+          finished.cancel();
+        }
+      }
+      if (onFinish != null) {
+        onFinish.run();
+      }
+    }
   }
 
   /**
@@ -86,20 +130,47 @@ public class CountdownTimer {
    * @return The remaining seconds when stopped
    */
   public int stop() {
-    if (task != null) {
-      task.cancel();
-      task = null;
+    if (handle != null) {
+      handle.cancel();
+      handle = null;
     }
     return secondsLeft;
   }
 
+  /**
+   * Pause the countdown, keeping the remaining time
+   */
+  public void pause() {
+    if (handle != null) {
+      handle.pause();
+    }
+  }
+
+  /**
+   * Resume a paused countdown
+   */
+  public void resume() {
+    if (handle != null) {
+      handle.resume();
+    }
+  }
+
   /**
    * Check if the countdown is running
    *
    * @return true if the countdown is active
    */
   public boolean isRunning() {
-    return task != null;
+    return handle != null;
+  }
+
+  /**
+   * Check if the countdown is paused
+   *
+   * @return true if the countdown is paused
+   */
+  public boolean isPaused() {
+    return handle != null && handle.isPaused();
   }
 
   /**
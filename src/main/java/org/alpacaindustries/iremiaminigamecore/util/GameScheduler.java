@@ -0,0 +1,242 @@
+package org.alpacaindustries.iremiaminigamecore.util;
+
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+
+/**
+ * Thread-context aware scheduling for region-threaded (Folia) and classic servers
+ *
+ * On a region-threaded server, work for a location runs on the region scheduler
+ * that owns it, work for an entity follows the entity across regions, and global
+ * work runs on the global region thread. Independent arenas therefore tick on
+ * separate threads. On a classic server every method falls back to the Bukkit
+ * scheduler, so all work stays on the main thread as before.
+ */
+public class GameScheduler {
+
+  private static final boolean REGIONIZED = detectRegionizedServer();
+
+  private final Plugin plugin;
+
+  public GameScheduler(@NotNull Plugin plugin) {
+    this.plugin = Objects.requireNonNull(plugin, "Plugin cannot be null");
+  }
+
+  /**
+   * Check if the server runs regions on separate threads (Folia)
+   */
+  public static boolean isRegionized() {
+    return REGIONIZED;
+  }
+
+  /**
+   * Check if the current thread is the global region thread, or the main thread on classic servers
+   */
+  public static boolean isGlobalThread() {
+    return REGIONIZED ? Bukkit.isGlobalTickThread() : Bukkit.isPrimaryThread();
+  }
+
+  /**
+   * Check if the current thread may modify the given location right now
+   */
+  public static boolean isOwnedByCurrentThread(@NotNull Location location) {
+    return REGIONIZED ? Bukkit.isOwnedByCurrentRegion(location) : Bukkit.isPrimaryThread();
+  }
+
+  /**
+   * Check if the current thread may modify the given entity right now
+   */
+  public static boolean isOwnedByCurrentThread(@NotNull Entity entity) {
+    return REGIONIZED ? Bukkit.isOwnedByCurrentRegion(entity) : Bukkit.isPrimaryThread();
+  }
+
+  /**
+   * Run a task on the global region, or the main thread on classic servers
+   *
+   * @param delayTicks Delay in ticks, 0 to run on the next opportunity
+   */
+  public Task runGlobal(@NotNull Runnable task, long delayTicks) {
+    if (REGIONIZED) {
+      return delayTicks <= 0
+          ? wrap(Bukkit.getGlobalRegionScheduler().run(plugin, t -> task.run()))
+          : wrap(Bukkit.getGlobalRegionScheduler().runDelayed(plugin, t -> task.run(), delayTicks));
+    }
+    return wrap(Bukkit.getScheduler().runTaskLater(plugin, task, Math.max(delayTicks, 0)));
+  }
+
+  /**
+   * Run a task repeatedly on the global region, or the main thread on classic servers
+   */
+  public Task runGlobalRepeating(@NotNull Runnable task, long delayTicks, long periodTicks) {
+    if (REGIONIZED) {
+      return wrap(Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, t -> task.run(),
+          Math.max(delayTicks, 1), Math.max(periodTicks, 1)));
+    }
+    return wrap(Bukkit.getScheduler().runTaskTimer(plugin, task, Math.max(delayTicks, 0), Math.max(periodTicks, 1)));
+  }
+
+  /**
+   * Run a task on the region that owns a location
+   *
+   * @param delayTicks Delay in ticks, 0 to run on the next opportunity
+   */
+  public Task runAt(@NotNull Location location, @NotNull Runnable task, long delayTicks) {
+    if (REGIONIZED) {
+      return delayTicks <= 0
+          ? wrap(Bukkit.getRegionScheduler().run(plugin, location, t -> task.run()))
+          : wrap(Bukkit.getRegionScheduler().runDelayed(plugin, location, t -> task.run(), delayTicks));
+    }
+    return runGlobal(task, delayTicks);
+  }
+
+  /**
+   * Run a task repeatedly on the region that owns a location
+   */
+  public Task runAtRepeating(@NotNull Location location, @NotNull Runnable task, long delayTicks, long periodTicks) {
+    if (REGIONIZED) {
+      return wrap(Bukkit.getRegionScheduler().runAtFixedRate(plugin, location, t -> task.run(),
+          Math.max(delayTicks, 1), Math.max(periodTicks, 1)));
+    }
+    return runGlobalRepeating(task, delayTicks, periodTicks);
+  }
+
+  /**
+   * Run a task on whichever region owns an entity when the task is due
+   *
+   * @param retired Run instead of the task if the entity was removed (e.g. the player quit), may be null
+   * @param delayTicks Delay in ticks, 0 to run on the next opportunity
+   */
+  public Task runFor(@NotNull Entity entity, @NotNull Runnable task, @Nullable Runnable retired, long delayTicks) {
+    if (REGIONIZED) {
+      ScheduledTask scheduled = entity.getScheduler().runDelayed(plugin, t -> task.run(), retired,
+          Math.max(delayTicks, 1));
+      if (scheduled == null) {
+        // Already removed, the scheduler will not call the retired callback itself
+        if (retired != null) {
+          runGlobal(retired, 0);
+        }
+        return Task.NONE;
+      }
+      return wrap(scheduled);
+    }
+    return runGlobal(() -> {
+      if (entity.isValid()) {
+        task.run();
+      } else if (retired != null) {
+        retired.run();
+      }
+    }, delayTicks);
+  }
+
+  /**
+   * Run a task now if on the global region (the main thread on classic servers), otherwise schedule it there
+   */
+  public void executeGlobal(@NotNull Runnable task) {
+    if (isGlobalThread()) {
+      task.run();
+    } else {
+      runGlobal(task, 0);
+    }
+  }
+
+  /**
+   * Run a task now if the current thread owns the location, otherwise on its region
+   */
+  public void executeAt(@NotNull Location location, @NotNull Runnable task) {
+    if (isOwnedByCurrentThread(location)) {
+      task.run();
+    } else {
+      runAt(location, task, 0);
+    }
+  }
+
+  /**
+   * Run a task now if the current thread owns the entity, otherwise on its region
+   */
+  public void executeFor(@NotNull Entity entity, @NotNull Runnable task) {
+    if (isOwnedByCurrentThread(entity)) {
+      task.run();
+    } else {
+      runFor(entity, task, null, 0);
+    }
+  }
+
+  /**
+   * Run a task off the tick threads
+   */
+  public Task runAsync(@NotNull Runnable task) {
+    if (REGIONIZED) {
+      return wrap(Bukkit.getAsyncScheduler().runNow(plugin, t -> task.run()));
+    }
+    return wrap(Bukkit.getScheduler().runTaskAsynchronously(plugin, task));
+  }
+
+  private static Task wrap(ScheduledTask task) {
+    return new Task() {
+      @Override
+      public void cancel() {
+        task.cancel();
+      }
+
+      @Override
+      public boolean isCancelled() {
+        return task.isCancelled();
+      }
+    };
+  }
+
+  private static Task wrap(BukkitTask task) {
+    return new Task() {
+      @Override
+      public void cancel() {
+        task.cancel();
+      }
+
+      @Override
+      public boolean isCancelled() {
+        return task.isCancelled();
+      }
+    };
+  }
+
+  private static boolean detectRegionizedServer() {
+    try {
+      Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+      return true;
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+  }
+
+  /**
+   * A scheduled task, independent of the scheduler that runs it
+   */
+  public interface Task {
+
+    /**
+     * Task returned when nothing was scheduled
+     */
+    Task NONE = new Task() {
+      @Override
+      public void cancel() {
+      }
+
+      @Override
+      public boolean isCancelled() {
+        return true;
+      }
+    };
+
+    void cancel();
+
+    boolean isCancelled();
+  }
+}
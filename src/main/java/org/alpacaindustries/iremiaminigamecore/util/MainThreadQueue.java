@@ -0,0 +1,65 @@
+package org.alpacaindustries.iremiaminigamecore.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Hands results of asynchronous work back to the main thread in batches
+ *
+ * Tasks from any thread are queued and run together once per tick by a single
+ * timer on the shared tick scheduler, so thousands of completions cost one
+ * scheduled task per tick instead of one each. On Folia the queue is drained
+ * on the global region.
+ */
+public class MainThreadQueue implements Executor {
+
+  private final Logger logger;
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger pending = new AtomicInteger();
+
+  public MainThreadQueue(@NotNull Logger logger) {
+    this.logger = Objects.requireNonNull(logger, "Logger cannot be null");
+  }
+
+  /**
+   * Queue a task for the next drain
+   */
+  @Override
+  public void execute(@NotNull Runnable task) {
+    tasks.add(Objects.requireNonNull(task, "Task cannot be null"));
+    pending.incrementAndGet();
+  }
+
+  /**
+   * Run the tasks queued before this call. Tasks queued while draining wait for the
+   * next drain, so a task that queues another one cannot stall the tick.
+   */
+  public void drain() {
+    int count = pending.get();
+    for (int i = 0; i < count; i++) {
+      Runnable task = tasks.poll();
+      if (task == null) {
+        break;
+      }
+      pending.decrementAndGet();
+      try {
+        task.run();
+      } catch (Exception e) {
+        logger.warning("Error in main thread task: " + e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Get the number of tasks waiting for the next drain
+   */
+  public int getPendingCount() {
+    return pending.get();
+  }
+}
@@ -2,14 +2,14 @@ package org.alpacaindustries.iremiaminigamecore.util;
 
 import org.alpacaindustries.iremiaminigamecore.minigame.Minigame;
 import org.bukkit.plugin.Plugin;
-import org.bukkit.scheduler.BukkitRunnable;
 
 /**
  * Utility class for periodic minigame maintenance tasks
  */
-public class MinigameMaintenanceTask extends BukkitRunnable {
+public class MinigameMaintenanceTask implements Runnable {
 
   private final Minigame minigame;
+  private GameScheduler.Task task;
 
   public MinigameMaintenanceTask(Minigame minigame) {
     this.minigame = minigame;
@@ -25,7 +25,18 @@ public class MinigameMaintenanceTask extends BukkitRunnable {
    * Start the maintenance task with default interval
    */
   public void start(Plugin plugin) {
-    // Run every 30 seconds (600 ticks)
-    this.runTaskTimer(plugin, 600L, 600L);
+    cancel();
+    // Run every 30 seconds (600 ticks); only touches the cache, so the global region is fine on Folia
+    task = new GameScheduler(plugin).runGlobalRepeating(this, 600L, 600L);
+  }
+
+  /**
+   * Stop the maintenance task
+   */
+  public void cancel() {
+    if (task != null) {
+      task.cancel();
+      task = null;
+    }
   }
 }
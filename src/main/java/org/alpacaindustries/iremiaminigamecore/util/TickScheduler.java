@@ -0,0 +1,332 @@
+package org.alpacaindustries.iremiaminigamecore.util;
+
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Shared tick driver for all minigame timers
+ *
+ * A single scheduler task advances a hierarchical timing wheel once per tick, so
+ * thousands of countdowns and delayed tasks cost one scheduler task in total.
+ * Scheduling and cancellation are O(1); timers far in the future are stored in
+ * coarser wheels and cascaded down as their deadline approaches.
+ *
+ * On region-threaded servers the wheel is driven from the global region; callers
+ * that touch arena or player state hop to the owning region through {@link GameScheduler}.
+ */
+public class TickScheduler {
+
+  private static final int WHEEL_BITS = 6;
+  private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+  private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+  private static final int LEVELS = 4;
+  private static final long MAX_DELAY = (1L << (WHEEL_BITS * LEVELS)) - 1;
+
+  private final Plugin plugin;
+  private final GameScheduler scheduler;
+  private final Handle[][] wheels = new Handle[LEVELS][WHEEL_SIZE];
+  private final List<Handle> due = new ArrayList<>();
+  private long currentTick;
+  private int scheduledCount;
+  private GameScheduler.Task driver;
+
+  public TickScheduler(@NotNull Plugin plugin) {
+    this(plugin, new GameScheduler(plugin));
+  }
+
+  public TickScheduler(@NotNull Plugin plugin, @NotNull GameScheduler scheduler) {
+    this.plugin = Objects.requireNonNull(plugin, "Plugin cannot be null");
+    this.scheduler = Objects.requireNonNull(scheduler, "Scheduler cannot be null");
+  }
+
+  /**
+   * Start driving the wheel from the global scheduler
+   */
+  public synchronized void start() {
+    if (driver == null) {
+      driver = scheduler.runGlobalRepeating(this::tick, 1L, 1L);
+    }
+  }
+
+  /**
+   * Stop the driver and cancel every scheduled timer
+   */
+  public synchronized void shutdown() {
+    if (driver != null) {
+      driver.cancel();
+      driver = null;
+    }
+    for (Handle[] wheel : wheels) {
+      for (int slot = 0; slot < WHEEL_SIZE; slot++) {
+        Handle handle = wheel[slot];
+        while (handle != null) {
+          Handle next = handle.next;
+          handle.prev = null;
+          handle.next = null;
+          handle.state = Handle.CANCELLED;
+          handle = next;
+        }
+        wheel[slot] = null;
+      }
+    }
+    scheduledCount = 0;
+  }
+
+  /**
+   * Run a task once after a delay
+   *
+   * @param delayTicks Delay in ticks, at least one tick
+   */
+  public Handle schedule(@NotNull Runnable task, long delayTicks) {
+    return scheduleRepeating(task, delayTicks, 0);
+  }
+
+  /**
+   * Run a task repeatedly
+   *
+   * @param delayTicks  Delay before the first run, at least one tick
+   * @param periodTicks Ticks between runs, or 0 to run once
+   */
+  public synchronized Handle scheduleRepeating(@NotNull Runnable task, long delayTicks, long periodTicks) {
+    Objects.requireNonNull(task, "Task cannot be null");
+    if (periodTicks < 0) {
+      throw new IllegalArgumentException("Period cannot be negative");
+    }
+    Handle handle = new Handle(this, task, periodTicks);
+    insert(handle, Math.max(delayTicks, 1));
+    return handle;
+  }
+
+  /**
+   * Get the number of ticks the wheel has advanced
+   */
+  public synchronized long getCurrentTick() {
+    return currentTick;
+  }
+
+  /**
+   * Get the number of timers waiting in the wheel
+   */
+  public synchronized int getScheduledCount() {
+    return scheduledCount;
+  }
+
+  /**
+   * Advance the wheel by one tick and run everything that is due
+   */
+  void tick() {
+    synchronized (this) {
+      currentTick++;
+      cascade();
+
+      int slot = (int) (currentTick & WHEEL_MASK);
+      Handle handle = wheels[0][slot];
+      while (handle != null) {
+        Handle next = handle.next;
+        unlink(handle);
+        if (handle.deadline <= currentTick) {
+          handle.state = Handle.RUNNING;
+          due.add(handle);
+        } else {
+          insert(handle, handle.deadline - currentTick);
+        }
+        handle = next;
+      }
+    }
+
+    for (int i = 0; i < due.size(); i++) {
+      Handle handle = due.get(i);
+      if (handle.state == Handle.CANCELLED) {
+        continue; // Cancelled by an earlier task in this tick
+      }
+      try {
+        handle.task.run();
+      } catch (Exception e) {
+        plugin.getLogger().warning("Error in scheduled minigame task: " + e.getMessage());
+        e.printStackTrace();
+      }
+    }
+
+    synchronized (this) {
+      for (int i = 0; i < due.size(); i++) {
+        Handle handle = due.get(i);
+        if (handle.state == Handle.RUNNING) {
+          if (handle.period > 0) {
+            insert(handle, handle.period);
+          } else {
+            handle.state = Handle.DONE;
+          }
+        } else if (handle.state == Handle.PAUSED && handle.remaining <= 0) {
+          // Paused from inside its own run: resume waits a full period, one-shot timers are done
+          if (handle.period > 0) {
+            handle.remaining = handle.period;
+          } else {
+            handle.state = Handle.DONE;
+          }
+        }
+      }
+      due.clear();
+    }
+  }
+
+  /**
+   * Move timers from coarser wheels into finer ones when their slot comes up
+   */
+  private void cascade() {
+    for (int level = 1; level < LEVELS; level++) {
+      int shift = WHEEL_BITS * level;
+      if ((currentTick & ((1L << shift) - 1)) != 0) {
+        return;
+      }
+      int slot = (int) ((currentTick >>> shift) & WHEEL_MASK);
+      Handle handle = wheels[level][slot];
+      while (handle != null) {
+        Handle next = handle.next;
+        unlink(handle);
+        insert(handle, handle.deadline - currentTick);
+        handle = next;
+      }
+    }
+  }
+
+  private void insert(Handle handle, long delayTicks) {
+    long delay = Math.min(Math.max(delayTicks, 0), MAX_DELAY);
+    handle.deadline = currentTick + delay;
+
+    int level = 0;
+    while (level < LEVELS - 1 && delay >= (1L << (WHEEL_BITS * (level + 1)))) {
+      level++;
+    }
+    int slot = (int) ((handle.deadline >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+
+    Handle head = wheels[level][slot];
+    handle.prev = null;
+    handle.next = head;
+    if (head != null) {
+      head.prev = handle;
+    }
+    wheels[level][slot] = handle;
+    handle.level = level;
+    handle.slot = slot;
+    handle.state = Handle.SCHEDULED;
+    scheduledCount++;
+  }
+
+  private void unlink(Handle handle) {
+    if (handle.prev != null) {
+      handle.prev.next = handle.next;
+    } else {
+      wheels[handle.level][handle.slot] = handle.next;
+    }
+    if (handle.next != null) {
+      handle.next.prev = handle.prev;
+    }
+    handle.prev = null;
+    handle.next = null;
+    scheduledCount--;
+  }
+
+  /**
+   * A timer registered with the scheduler
+   */
+  public static final class Handle {
+    private static final int SCHEDULED = 0;
+    private static final int RUNNING = 1;
+    private static final int PAUSED = 2;
+    private static final int CANCELLED = 3;
+    private static final int DONE = 4;
+
+    private final TickScheduler scheduler;
+    private final Runnable task;
+    private final long period;
+    private Handle prev;
+    private Handle next;
+    private int level;
+    private int slot;
+    private long deadline;
+    private long remaining;
+    private volatile int state;
+
+    private Handle(TickScheduler scheduler, Runnable task, long period) {
+      this.scheduler = scheduler;
+      this.task = task;
+      this.period = period;
+    }
+
+    /**
+     * Cancel the timer. Has no effect if it already finished.
+     */
+    public void cancel() {
+      synchronized (scheduler) {
+        if (state == SCHEDULED) {
+          scheduler.unlink(this);
+        }
+        if (state != DONE) {
+          state = CANCELLED;
+        }
+      }
+    }
+
+    /**
+     * Pause the timer, keeping the ticks left until its next run
+     */
+    public void pause() {
+      synchronized (scheduler) {
+        if (state == SCHEDULED) {
+          scheduler.unlink(this);
+          remaining = deadline - scheduler.currentTick;
+          state = PAUSED;
+        } else if (state == RUNNING) {
+          remaining = 0;
+          state = PAUSED;
+        }
+      }
+    }
+
+    /**
+     * Resume a paused timer
+     */
+    public void resume() {
+      synchronized (scheduler) {
+        if (state == PAUSED) {
+          scheduler.insert(this, Math.max(remaining, 1));
+        }
+      }
+    }
+
+    /**
+     * Check if the timer will still run
+     */
+    public boolean isActive() {
+      synchronized (scheduler) {
+        return state == SCHEDULED || state == RUNNING || state == PAUSED;
+      }
+    }
+
+    /**
+     * Check if the timer is paused
+     */
+    public boolean isPaused() {
+      synchronized (scheduler) {
+        return state == PAUSED;
+      }
+    }
+
+    /**
+     * Get the ticks left until the next run
+     */
+    public long getRemainingTicks() {
+      synchronized (scheduler) {
+        return switch (state) {
+          case SCHEDULED -> deadline - scheduler.currentTick;
+          case PAUSED -> remaining;
+          default -> 0;
+        };
+      }
+    }
+  }
+}
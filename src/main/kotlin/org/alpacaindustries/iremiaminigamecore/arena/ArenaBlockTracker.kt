@@ -0,0 +1,114 @@
+package org.alpacaindustries.iremiaminigamecore.arena
+
+import org.bukkit.World
+import org.bukkit.block.Block
+import org.bukkit.event.EventHandler
+import org.bukkit.event.EventPriority
+import org.bukkit.event.Listener
+import org.bukkit.event.block.BlockBurnEvent
+import org.bukkit.event.block.BlockExplodeEvent
+import org.bukkit.event.block.BlockFadeEvent
+import org.bukkit.event.block.BlockFormEvent
+import org.bukkit.event.block.BlockFromToEvent
+import org.bukkit.event.block.BlockIgniteEvent
+import org.bukkit.event.block.BlockPistonExtendEvent
+import org.bukkit.event.block.BlockPistonRetractEvent
+import org.bukkit.event.block.LeavesDecayEvent
+import org.bukkit.event.entity.EntityChangeBlockEvent
+import org.bukkit.event.entity.EntityExplodeEvent
+import org.bukkit.plugin.Plugin
+import org.bukkit.util.BoundingBox
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * Records block changes without a player, like explosions, fire, fluids and pistons, into
+ * the [BlockRollback] of the arena they happen in.
+ *
+ * One listener serves all arenas and is only registered once the first arena is tracked,
+ * so servers without rollback regions pay nothing for these frequent events.
+ */
+class ArenaBlockTracker internal constructor(private val plugin: Plugin) : Listener {
+
+    private val arenas = CopyOnWriteArrayList<TrackedArena>()
+    private val registered = AtomicBoolean(false)
+
+    /**
+     * Record changes inside a region into a rollback until [untrack] is called.
+     */
+    fun track(world: World, region: BoundingBox, rollback: BlockRollback) {
+        untrack(rollback)
+        arenas.add(TrackedArena(world, region.clone(), rollback))
+        if (registered.compareAndSet(false, true)) {
+            plugin.server.pluginManager.registerEvents(this, plugin)
+        }
+    }
+
+    /**
+     * Stop recording changes into a rollback.
+     */
+    fun untrack(rollback: BlockRollback) {
+        arenas.removeIf { it.rollback === rollback }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    fun onEntityExplode(event: EntityExplodeEvent) {
+        event.blockList().forEach(::record)
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    fun onBlockExplode(event: BlockExplodeEvent) {
+        record(event.block)
+        event.blockList().forEach(::record)
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    fun onBlockBurn(event: BlockBurnEvent) = record(event.block)
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    fun onBlockIgnite(event: BlockIgniteEvent) = record(event.block)
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    fun onBlockFromTo(event: BlockFromToEvent) = record(event.toBlock)
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    fun onBlockForm(event: BlockFormEvent) = record(event.block)
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    fun onBlockFade(event: BlockFadeEvent) = record(event.block)
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    fun onLeavesDecay(event: LeavesDecayEvent) = record(event.block)
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    fun onEntityChangeBlock(event: EntityChangeBlockEvent) = record(event.block)
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    fun onPistonExtend(event: BlockPistonExtendEvent) {
+        record(event.block.getRelative(event.direction))
+        event.blocks.forEach { block ->
+            record(block)
+            record(block.getRelative(event.direction))
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    fun onPistonRetract(event: BlockPistonRetractEvent) {
+        record(event.block.getRelative(event.direction.oppositeFace))
+        event.blocks.forEach { block ->
+            record(block)
+            record(block.getRelative(event.direction))
+        }
+    }
+
+    private fun record(block: Block) {
+        for (arena in arenas) {
+            if (arena.world == block.world && arena.region.contains(block.x + 0.5, block.y + 0.5, block.z + 0.5)) {
+                arena.rollback.record(block)
+                return
+            }
+        }
+    }
+
+    private class TrackedArena(val world: World, val region: BoundingBox, val rollback: BlockRollback)
+}
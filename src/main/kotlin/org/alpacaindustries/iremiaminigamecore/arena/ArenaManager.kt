@@ -0,0 +1,278 @@
+package org.alpacaindustries.iremiaminigamecore.arena
+
+import io.papermc.lib.PaperLib
+import org.alpacaindustries.iremiaminigamecore.IremiaMinigameCorePlugin
+import org.alpacaindustries.iremiaminigamecore.util.AsyncUtils
+import org.alpacaindustries.iremiaminigamecore.util.GameScheduler
+import org.bukkit.Bukkit
+import org.bukkit.Location
+import org.bukkit.World
+import org.bukkit.WorldCreator
+import java.io.File
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Gives every minigame instance its own copy of an arena, so instances of the same type
+ * never share blocks.
+ *
+ * A template is a world folder in the server's world container. For each minigame type with
+ * a template a number of warm copies is kept loaded: the folder is copied on a virtual thread,
+ * then loaded as a world on the main thread, one copy per type at a time, so handing a copy
+ * to a new game is a queue poll. Copies are never reused; once a game is done with one it is
+ * unloaded without saving, its folder deleted in the background and a fresh copy takes its place.
+ *
+ * Worlds cannot be loaded at runtime on Folia, so there games keep their configured spawn point.
+ */
+class ArenaManager internal constructor(
+    private val plugin: IremiaMinigameCorePlugin,
+    private val defaultWarmCopies: Int
+) {
+
+    private companion object {
+        const val SLOT_PREFIX = "iremia_arena_"
+
+        // Files that identify a loaded world and must not be shared between copies
+        val SKIPPED_FILES = setOf("uid.dat", "session.lock")
+    }
+
+    private val templates = ConcurrentHashMap<String, Template>()
+    private val loaded = ConcurrentHashMap.newKeySet<ArenaSlot>()
+    private val counter = AtomicInteger()
+    private val closed = AtomicBoolean(false)
+    private val container: File get() = Bukkit.getWorldContainer()
+
+    // Leftover copies of the last run are deleted before any new copy is made
+    @Volatile
+    private var swept: CompletableFuture<Void> = CompletableFuture.completedFuture(null)
+
+    /**
+     * Delete copies left behind by the last run and register the templates from the config.
+     *
+     * @param configured Template world names keyed by minigame type
+     */
+    internal fun start(configured: Map<String, String>) {
+        swept = AsyncUtils.runAsync(plugin, Runnable {
+            container.listFiles { file -> file.isDirectory && file.name.startsWith(SLOT_PREFIX) }
+                ?.forEach { it.deleteRecursively() }
+        })
+        configured.forEach { (typeId, worldName) -> registerTemplate(typeId, worldName) }
+    }
+
+    /**
+     * Give every instance of a minigame type its own copy of a template world.
+     * Replaces the template of the type, discarding its warm copies.
+     *
+     * @param typeId Minigame type
+     * @param templateWorld Name of the template world folder; the world should not be loaded
+     * @param warmCopies Number of copies kept ready for new games
+     */
+    @JvmOverloads
+    fun registerTemplate(typeId: String, templateWorld: String, warmCopies: Int = defaultWarmCopies) {
+        val key = typeId.trim().lowercase()
+        if (GameScheduler.isRegionized()) {
+            plugin.logger.warning("Arena templates are not supported on region-threaded servers, $key shares its spawn world")
+            return
+        }
+        if (!File(container, templateWorld).isDirectory) {
+            plugin.logger.warning("Arena template world $templateWorld for $key does not exist")
+            return
+        }
+        val template = Template(key, templateWorld, warmCopies.coerceAtLeast(1))
+        templates.put(key, template)?.let(::discardReady)
+        if (Bukkit.getWorld(templateWorld) != null) {
+            plugin.logger.warning("Arena template world $templateWorld is loaded; copies may miss unsaved changes")
+        }
+        refill(template)
+        plugin.logger.info("Registered arena template $templateWorld for $key")
+    }
+
+    /**
+     * Stop copying the template of a minigame type and discard its warm copies.
+     * Copies in use stay until their games release them.
+     */
+    fun unregisterTemplate(typeId: String) {
+        templates.remove(typeId.trim().lowercase())?.let(::discardReady)
+    }
+
+    /**
+     * Check if a minigame type has an arena template.
+     */
+    fun hasTemplate(typeId: String): Boolean = templates.containsKey(typeId.trim().lowercase())
+
+    /**
+     * Get the number of copies ready for new games of a type.
+     */
+    fun readyCount(typeId: String): Int = templates[typeId.trim().lowercase()]?.ready?.size ?: 0
+
+    /**
+     * Take a warm copy of the arena of a minigame type and start preparing its replacement.
+     *
+     * @param typeId Minigame type
+     * @return the copy, or null if the type has no template or no copy is ready yet
+     */
+    fun acquire(typeId: String): ArenaSlot? {
+        val template = templates[typeId.trim().lowercase()] ?: return null
+        val slot = template.ready.poll()
+        refill(template)
+        if (slot == null) {
+            plugin.logger.warning("No warm arena copy for ${template.typeKey}; raise minigames.arenas.warm-copies")
+        }
+        return slot
+    }
+
+    /**
+     * Get where players leaving an arena copy should go: the spawn of the first loaded world
+     * that is not a copy, normally the main world.
+     *
+     * @return the lobby location, or null if only copies are loaded
+     */
+    fun lobbyLocation(): Location? =
+        Bukkit.getWorlds().firstOrNull { !it.name.startsWith(SLOT_PREFIX) }?.spawnLocation
+
+    /**
+     * Give back a copy once its game is done with it. It is unloaded on the next tick; games
+     * should have sent their players to the [lobbyLocation] by then, anyone still inside is
+     * teleported there first. Releasing twice does nothing.
+     */
+    fun release(slot: ArenaSlot) {
+        if (!slot.released.compareAndSet(false, true) || closed.get()) {
+            return
+        }
+        AsyncUtils.mainThreadExecutor(plugin).execute { discard(slot) }
+    }
+
+    /**
+     * Unload and delete all copies. Called when the plugin is disabled, after games have ended.
+     */
+    fun shutdown() {
+        if (!closed.compareAndSet(false, true)) {
+            return
+        }
+        templates.clear()
+        val lobby = lobbyLocation()
+        loaded.toList().forEach { slot ->
+            // No more ticks will run to finish asynchronous teleports
+            lobby?.let { location -> slot.world.players.forEach { it.teleport(location) } }
+            unload(slot)
+            File(container, slot.world.name).deleteRecursively()
+        }
+    }
+
+    private fun refill(template: Template) {
+        if (closed.get() || template.failed || templates[template.typeKey] !== template) {
+            return
+        }
+        if (template.ready.size >= template.warmCopies || !template.preparing.compareAndSet(false, true)) {
+            return
+        }
+
+        val name = SLOT_PREFIX + template.typeKey.replace(Regex("[^a-z0-9_-]"), "_") + "_" + counter.incrementAndGet()
+        val target = File(container, name)
+        swept
+            .thenRunAsync({ copyWorld(File(container, template.worldName), target) }, AsyncUtils.getIoExecutor())
+            .thenApplyAsync({ load(template, name) }, AsyncUtils.mainThreadExecutor(plugin))
+            .whenComplete { slot, error ->
+                template.preparing.set(false)
+                if (error != null) {
+                    // A broken template would fail the same way every time
+                    template.failed = true
+                    plugin.logger.severe("Failed to copy arena template ${template.worldName}: ${error.message}")
+                    AsyncUtils.runAsync(plugin, Runnable { target.deleteRecursively() })
+                    return@whenComplete
+                }
+                if (templates[template.typeKey] === template && !closed.get()) {
+                    template.ready.add(slot)
+                    refill(template)
+                } else {
+                    release(slot)
+                }
+            }
+    }
+
+    private fun copyWorld(source: File, target: File) {
+        target.deleteRecursively()
+        source.copyRecursively(target, overwrite = true)
+        SKIPPED_FILES.forEach { File(target, it).delete() }
+    }
+
+    private fun load(template: Template, name: String): ArenaSlot {
+        val world = checkNotNull(WorldCreator(name).createWorld()) { "World $name could not be loaded" }
+        world.isAutoSave = false
+        val slot = ArenaSlot(template.typeKey, world)
+        loaded.add(slot)
+        if (closed.get()) {
+            unload(slot)
+        }
+        return slot
+    }
+
+    private fun discardReady(template: Template) {
+        while (true) {
+            release(template.ready.poll() ?: return)
+        }
+    }
+
+    private fun discard(slot: ArenaSlot) {
+        evacuate(slot).whenComplete { _, _ ->
+            AsyncUtils.mainThreadExecutor(plugin).execute {
+                if (unload(slot)) {
+                    val folder = File(container, slot.world.name)
+                    AsyncUtils.runAsync(plugin, Runnable { folder.deleteRecursively() })
+                }
+                templates[slot.typeId]?.let(::refill)
+            }
+        }
+    }
+
+    /**
+     * Last resort for players their game did not send out: teleport them to the lobby.
+     */
+    private fun evacuate(slot: ArenaSlot): CompletableFuture<Void> {
+        val lobby = lobbyLocation()
+        val players = slot.world.players
+        if (lobby == null || players.isEmpty() || !loaded.contains(slot)) {
+            return CompletableFuture.completedFuture(null)
+        }
+        plugin.logger.warning("${players.size} players were still in arena copy ${slot.world.name}, moving them to the lobby")
+        return CompletableFuture.allOf(*players.map { PaperLib.teleportAsync(it, lobby) }.toTypedArray())
+    }
+
+    private fun unload(slot: ArenaSlot): Boolean {
+        if (!loaded.remove(slot)) {
+            return false
+        }
+        if (!Bukkit.unloadWorld(slot.world, false)) {
+            plugin.logger.warning("Could not unload arena copy ${slot.world.name}")
+            return false
+        }
+        return true
+    }
+
+    private class Template(val typeKey: String, val worldName: String, val warmCopies: Int) {
+        val ready = ConcurrentLinkedQueue<ArenaSlot>()
+        val preparing = AtomicBoolean(false)
+
+        @Volatile
+        var failed = false
+    }
+}
+
+/**
+ * A loaded copy of an arena template, owned by one minigame instance at a time
+ *
+ * @property typeId Minigame type the template belongs to
+ * @property world The copied world
+ */
+class ArenaSlot internal constructor(val typeId: String, val world: World) {
+
+    internal val released = AtomicBoolean(false)
+
+    /**
+     * Get the same position in this copy as a location in the template world.
+     */
+    fun translate(location: Location): Location = location.clone().also { it.world = world }
+}
@@ -0,0 +1,174 @@
+package org.alpacaindustries.iremiaminigamecore.arena
+
+import org.alpacaindustries.iremiaminigamecore.util.GameScheduler
+import org.bukkit.Bukkit
+import org.bukkit.Location
+import org.bukkit.World
+import org.bukkit.block.Block
+import org.bukkit.block.BlockState
+import org.bukkit.block.TileState
+import org.bukkit.block.data.BlockData
+import java.util.*
+import java.util.concurrent.CompletableFuture
+import java.util.logging.Logger
+
+/**
+ * Remembers the original state of every block changed during a match and puts it back afterwards.
+ *
+ * Only the first change of a block is recorded, keyed by its packed position, so a block
+ * broken and replaced a hundred times costs one entry. Plain blocks keep only their shared
+ * [BlockData]; blocks with contents such as chests and signs keep a full [BlockState] snapshot.
+ * Restoring runs over several ticks within a block and time budget per tick, chunk by
+ * chunk and bottom to top, so even a flattened arena causes no tick spike.
+ *
+ * All methods are thread-safe.
+ */
+class BlockRollback internal constructor(private val logger: Logger) {
+
+    private var worlds = HashMap<UUID, PackedBlockMap>()
+
+    /**
+     * Number of blocks that will be restored
+     */
+    val size: Int
+        @Synchronized get() = worlds.values.sumOf { it.size }
+
+    /**
+     * Record a block about to be changed. Does nothing if it was already recorded.
+     */
+    @Synchronized
+    fun record(block: Block) {
+        val map = worlds.getOrPut(block.world.uid) { PackedBlockMap() }
+        val key = PackedBlockMap.pack(block.x, block.y, block.z)
+        if (map.containsKey(key)) {
+            return
+        }
+        val state = block.getState(false)
+        map.putIfAbsent(key, if (state is TileState) block.state else block.blockData)
+    }
+
+    /**
+     * Record the state a block had before it was changed, e.g. from [org.bukkit.event.block.BlockPlaceEvent.getBlockReplacedState].
+     * Does nothing if the block was already recorded.
+     */
+    @Synchronized
+    fun record(previous: BlockState) {
+        val map = worlds.getOrPut(previous.world.uid) { PackedBlockMap() }
+        map.putIfAbsent(
+            PackedBlockMap.pack(previous.x, previous.y, previous.z),
+            if (previous is TileState) previous else previous.blockData
+        )
+    }
+
+    /**
+     * Forget all recorded blocks without restoring them.
+     */
+    @Synchronized
+    fun clear() {
+        worlds = HashMap()
+    }
+
+    /**
+     * Restore all recorded blocks over the following ticks. Recording starts over, so
+     * changes made while restoring belong to the next match.
+     *
+     * @param scheduler Scheduler running the restore on the threads owning the blocks
+     * @param blocksPerTick Maximum blocks restored per tick
+     * @param maxNanosPerTick Maximum time spent restoring per tick
+     * @return future completed with the number of restored blocks
+     */
+    fun restore(scheduler: GameScheduler, blocksPerTick: Int, maxNanosPerTick: Long): CompletableFuture<Int> {
+        val entries = takeEntries()
+        val future = CompletableFuture<Int>()
+        if (entries.isEmpty()) {
+            future.complete(0)
+            return future
+        }
+
+        var index = 0
+        lateinit var task: GameScheduler.Task
+        task = scheduler.runGlobalRepeating({
+            val deadline = System.nanoTime() + maxNanosPerTick
+            var budget = blocksPerTick
+            while (index < entries.size && budget > 0 && System.nanoTime() < deadline) {
+                // One run of blocks from the same chunk, handed to the thread owning it
+                val start = index
+                var end = start + 1
+                while (end < entries.size && end - start < minOf(budget, RUN_SIZE) && entries[end].sameChunk(entries[start])) {
+                    end++
+                }
+                val run = entries.subList(start, end)
+                scheduler.executeAt(run[0].location(), Runnable { run.forEach(::restoreEntry) })
+                budget -= end - start
+                index = end
+            }
+            if (index >= entries.size) {
+                task.cancel()
+                future.complete(entries.size)
+            }
+        }, 1L, 1L)
+        return future
+    }
+
+    /**
+     * Restore all recorded blocks immediately on the calling thread, e.g. while the server shuts down.
+     *
+     * @return the number of restored blocks
+     */
+    fun restoreNow(): Int {
+        val entries = takeEntries()
+        entries.forEach(::restoreEntry)
+        return entries.size
+    }
+
+    private fun restoreEntry(entry: Entry) {
+        try {
+            entry.restore()
+        } catch (e: Exception) {
+            logger.warning("Failed to restore block at ${entry.x}, ${entry.y}, ${entry.z}: ${e.message}")
+        }
+    }
+
+    private fun takeEntries(): List<Entry> {
+        val taken = synchronized(this) {
+            val current = worlds
+            worlds = HashMap()
+            current
+        }
+
+        val entries = ArrayList<Entry>()
+        taken.forEach { (worldId, map) ->
+            val world = Bukkit.getWorld(worldId)
+            if (world == null) {
+                logger.warning("Cannot restore ${map.size} blocks of unloaded world $worldId")
+                return@forEach
+            }
+            map.forEach { key, value ->
+                entries.add(Entry(world, PackedBlockMap.unpackX(key), PackedBlockMap.unpackY(key), PackedBlockMap.unpackZ(key), value))
+            }
+        }
+        // Chunk by chunk, bottom to top, so supporting blocks come back before what rests on them
+        entries.sortWith(compareBy<Entry>({ it.world.uid }, { it.x shr 4 }, { it.z shr 4 }, { it.y }))
+        return entries
+    }
+
+    private class Entry(val world: World, val x: Int, val y: Int, val z: Int, val original: Any) {
+
+        fun sameChunk(other: Entry): Boolean =
+            world === other.world && x shr 4 == other.x shr 4 && z shr 4 == other.z shr 4
+
+        fun location(): Location = Location(world, x.toDouble(), y.toDouble(), z.toDouble())
+
+        fun restore() {
+            when (original) {
+                is BlockState -> original.update(true, false)
+                is BlockData -> world.getBlockAt(x, y, z).setBlockData(original, false)
+            }
+        }
+    }
+
+    private companion object {
+        // Blocks per scheduled run; keeps the time budget checked often on a single thread
+        const val RUN_SIZE = 256
+    }
+}
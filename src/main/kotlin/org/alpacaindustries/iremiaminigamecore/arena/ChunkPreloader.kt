@@ -0,0 +1,117 @@
+package org.alpacaindustries.iremiaminigamecore.arena
+
+import io.papermc.lib.PaperLib
+import org.alpacaindustries.iremiaminigamecore.util.GameScheduler
+import org.bukkit.Bukkit
+import org.bukkit.Location
+import org.bukkit.World
+import org.bukkit.plugin.Plugin
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * Loads the chunks around spawn points without blocking the main thread and keeps them
+ * loaded with plugin chunk tickets while a match needs them.
+ *
+ * Plugin tickets are not counted by the server, and games in one world can share chunks, so
+ * holds are counted here: a chunk keeps its ticket until the last hold on it is released.
+ * Tickets are added and removed on the thread owning the chunk, each time checking the current
+ * count, so a release racing a load never leaves a ticket behind or removes one still in use.
+ */
+class ChunkPreloader internal constructor(private val plugin: Plugin, private val scheduler: GameScheduler) {
+
+    // Guarded by this
+    private val holds = HashMap<ChunkKey, Int>()
+
+    /**
+     * Load the chunks within a radius of some locations and keep them loaded until the hold is released.
+     *
+     * @param locations Locations to load around; those without a world are ignored
+     * @param radius Radius in chunks around each location
+     * @return the hold, whose [ChunkHold.ready] completes once all chunks are loaded
+     */
+    fun hold(locations: Collection<Location>, radius: Int): ChunkHold {
+        val keys = LinkedHashSet<ChunkKey>()
+        for (location in locations) {
+            val world = location.world ?: continue
+            val chunkX = location.blockX shr 4
+            val chunkZ = location.blockZ shr 4
+            for (dx in -radius..radius) {
+                for (dz in -radius..radius) {
+                    keys.add(ChunkKey(world, chunkX + dx, chunkZ + dz))
+                }
+            }
+        }
+
+        synchronized(this) {
+            keys.forEach { key -> holds.merge(key, 1) { held, added -> held + added } }
+        }
+        val loads = keys.map { key ->
+            PaperLib.getChunkAtAsync(key.world, key.x, key.z, true).thenAccept { chunk ->
+                if (isHeld(key)) {
+                    chunk.addPluginChunkTicket(plugin)
+                }
+            }
+        }
+        return ChunkHold(this, keys, CompletableFuture.allOf(*loads.toTypedArray()))
+    }
+
+    internal fun release(keys: Collection<ChunkKey>) {
+        val freed = synchronized(this) {
+            keys.filter { key ->
+                val remaining = (holds[key] ?: return@filter false) - 1
+                if (remaining == 0) holds.remove(key) else holds[key] = remaining
+                remaining == 0
+            }
+        }
+        freed.forEach { key ->
+            scheduler.executeAt(key.location(), Runnable {
+                if (!isHeld(key) && Bukkit.getWorld(key.world.uid) != null) {
+                    key.world.removePluginChunkTicket(key.x, key.z, plugin)
+                }
+            })
+        }
+    }
+
+    @Synchronized
+    private fun isHeld(key: ChunkKey): Boolean = holds.containsKey(key)
+
+    internal class ChunkKey(val world: World, val x: Int, val z: Int) {
+
+        fun location(): Location = Location(world, (x shl 4).toDouble(), 0.0, (z shl 4).toDouble())
+
+        override fun equals(other: Any?): Boolean =
+            other is ChunkKey && x == other.x && z == other.z && world.uid == other.world.uid
+
+        override fun hashCode(): Int = (world.uid.hashCode() * 31 + x) * 31 + z
+    }
+}
+
+/**
+ * Chunks kept loaded by a [ChunkPreloader] until [release] is called
+ *
+ * @property ready Completed once every chunk is loaded, exceptionally if one failed to load
+ */
+class ChunkHold internal constructor(
+    private val owner: ChunkPreloader,
+    private val keys: Collection<ChunkPreloader.ChunkKey>,
+    val ready: CompletableFuture<Void>
+) {
+
+    private val released = AtomicBoolean(false)
+
+    /**
+     * Number of chunks held
+     */
+    val chunkCount: Int
+        get() = keys.size
+
+    /**
+     * Let the chunks unload again. Releasing twice does nothing.
+     */
+    fun release() {
+        if (released.compareAndSet(false, true)) {
+            owner.release(keys)
+        }
+    }
+}
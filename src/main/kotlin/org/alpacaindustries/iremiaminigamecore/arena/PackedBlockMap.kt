@@ -0,0 +1,121 @@
+package org.alpacaindustries.iremiaminigamecore.arena
+
+/**
+ * Open-addressing hash map from packed block positions to values.
+ *
+ * Keys are plain longs from [pack], so recording a block allocates no boxed key or entry
+ * object, and a map of a few hundred thousand blocks stays a handful of arrays.
+ * Not thread-safe.
+ */
+internal class PackedBlockMap(expectedSize: Int = 256) {
+
+    companion object {
+        // pack() never produces this for coordinates inside the world border
+        private const val EMPTY = Long.MIN_VALUE
+
+        /**
+         * Pack a block position as 26 bits x, 26 bits z and 12 bits y, the same layout Minecraft uses.
+         */
+        fun pack(x: Int, y: Int, z: Int): Long =
+            ((x.toLong() and 0x3FFFFFF) shl 38) or ((z.toLong() and 0x3FFFFFF) shl 12) or (y.toLong() and 0xFFF)
+
+        fun unpackX(packed: Long): Int = (packed shr 38).toInt()
+
+        fun unpackY(packed: Long): Int = (packed shl 52 shr 52).toInt()
+
+        fun unpackZ(packed: Long): Int = (packed shl 26 shr 38).toInt()
+    }
+
+    private var keys: LongArray
+    private var values: Array<Any?>
+    private var mask: Int
+
+    var size = 0
+        private set
+
+    init {
+        var capacity = 16
+        while (capacity * 3 < expectedSize * 4) {
+            capacity = capacity shl 1
+        }
+        keys = LongArray(capacity) { EMPTY }
+        values = arrayOfNulls(capacity)
+        mask = capacity - 1
+    }
+
+    /**
+     * Store a value unless the key already has one.
+     *
+     * @return true if the value was stored
+     */
+    fun putIfAbsent(key: Long, value: Any): Boolean {
+        var slot = indexOf(key)
+        while (true) {
+            val existing = keys[slot]
+            if (existing == EMPTY) {
+                break
+            }
+            if (existing == key) {
+                return false
+            }
+            slot = (slot + 1) and mask
+        }
+        keys[slot] = key
+        values[slot] = value
+        if (++size * 4 > keys.size * 3) {
+            grow()
+        }
+        return true
+    }
+
+    fun containsKey(key: Long): Boolean {
+        var slot = indexOf(key)
+        while (true) {
+            val existing = keys[slot]
+            if (existing == EMPTY) {
+                return false
+            }
+            if (existing == key) {
+                return true
+            }
+            slot = (slot + 1) and mask
+        }
+    }
+
+    /**
+     * Call the action for every entry, in no particular order.
+     */
+    fun forEach(action: (Long, Any) -> Unit) {
+        for (i in keys.indices) {
+            val key = keys[i]
+            if (key != EMPTY) {
+                action(key, values[i]!!)
+            }
+        }
+    }
+
+    private fun indexOf(key: Long): Int {
+        // Spread the bits so neighbouring blocks land in different slots
+        val hash = key * -0x61c8864680b583ebL
+        return (hash xor (hash ushr 32)).toInt() and mask
+    }
+
+    private fun grow() {
+        val oldKeys = keys
+        val oldValues = values
+        keys = LongArray(oldKeys.size shl 1) { EMPTY }
+        values = arrayOfNulls(oldKeys.size shl 1)
+        mask = keys.size - 1
+        for (i in oldKeys.indices) {
+            val key = oldKeys[i]
+            if (key != EMPTY) {
+                var slot = indexOf(key)
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) and mask
+                }
+                keys[slot] = key
+                values[slot] = oldValues[i]
+            }
+        }
+    }
+}
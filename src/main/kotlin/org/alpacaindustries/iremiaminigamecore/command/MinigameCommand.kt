@@ -3,6 +3,7 @@ package org.alpacaindustries.iremiaminigamecore.command
 import net.kyori.adventure.text.Component
 import net.kyori.adventure.text.minimessage.MiniMessage
 import org.alpacaindustries.iremiaminigamecore.IremiaMinigameCorePlugin
+import org.alpacaindustries.iremiaminigamecore.matchmaking.EnqueueResult
 import org.alpacaindustries.iremiaminigamecore.minigame.AddPlayerResult
 import org.alpacaindustries.iremiaminigamecore.minigame.MinigameManager
 import org.bukkit.command.Command
@@ -45,6 +46,8 @@ class MinigameCommand(private val plugin: IremiaMinigameCorePlugin) : CommandExe
     sealed class MinigameSubCommand {
         data class Join(val gameId: String) : MinigameSubCommand()
         object Leave : MinigameSubCommand()
+        data class Queue(val type: String) : MinigameSubCommand()
+        object Unqueue : MinigameSubCommand()
         data class Create(val type: String, val id: String) : MinigameSubCommand()
         object List : MinigameSubCommand()
         data class Start(val gameId: String) : MinigameSubCommand()
@@ -111,6 +114,8 @@ class MinigameCommand(private val plugin: IremiaMinigameCorePlugin) : CommandExe
         return when (val subCommand = args[0].lowercase()) {
             "join" -> if (args.size >= 2) MinigameSubCommand.Join(args[1]) else MinigameSubCommand.Unknown(subCommand)
             "leave" -> MinigameSubCommand.Leave
+            "queue" -> if (args.size >= 2) MinigameSubCommand.Queue(args[1]) else MinigameSubCommand.Unknown(subCommand)
+            "unqueue" -> MinigameSubCommand.Unqueue
             "create" -> if (args.size >= 3) MinigameSubCommand.Create(args[1], args[2]) else MinigameSubCommand.Unknown(subCommand)
             "list" -> MinigameSubCommand.List
             "start" -> if (args.size >= 2) MinigameSubCommand.Start(args[1]) else MinigameSubCommand.Unknown(subCommand)
@@ -136,6 +141,8 @@ class MinigameCommand(private val plugin: IremiaMinigameCorePlugin) : CommandExe
         return when (command) {
             is MinigameSubCommand.Join -> handleJoin(sender, command.gameId)
             is MinigameSubCommand.Leave -> handleLeave(sender)
+            is MinigameSubCommand.Queue -> handleQueue(sender, command.type)
+            is MinigameSubCommand.Unqueue -> handleUnqueue(sender)
             is MinigameSubCommand.Create -> handleCreate(sender, command.type, command.id)
             is MinigameSubCommand.List -> handleList(sender)
             is MinigameSubCommand.Start -> handleStart(sender, command.gameId)
@@ -209,6 +216,36 @@ class MinigameCommand(private val plugin: IremiaMinigameCorePlugin) : CommandExe
         }
     }
 
+    private fun handleQueue(sender: CommandSender, gameType: String): CommandResult {
+        val player = sender.requirePlayer() ?: return CommandResult.Error(
+            prefixed("<red>Only players can queue for games.")
+        )
+
+        return when (minigameManager.matchmaking.enqueue(player, gameType)) {
+            is EnqueueResult.Queued -> {
+                player.sendMessage(prefixed("<green>You are queued for <gold>$gameType<green>."))
+                CommandResult.Success
+            }
+            is EnqueueResult.AlreadyQueued -> CommandResult.Error(prefixed("<red>You are already in a queue."))
+            is EnqueueResult.AlreadyInGame -> CommandResult.Error(prefixed("<red>You are already in a game! Leave it first."))
+            is EnqueueResult.UnknownType -> CommandResult.Error(prefixed("<red>Unknown game type: <yellow>$gameType"))
+            is EnqueueResult.PartyTooLarge -> CommandResult.Error(prefixed("<red>Your party is too large for this game."))
+        }
+    }
+
+    private fun handleUnqueue(sender: CommandSender): CommandResult {
+        val player = sender.requirePlayer() ?: return CommandResult.Error(
+            prefixed("<red>Only players can leave queues.")
+        )
+
+        return if (minigameManager.matchmaking.dequeue(player.uniqueId)) {
+            player.sendMessage(prefixed("<green>You left the queue."))
+            CommandResult.Success
+        } else {
+            CommandResult.Error(prefixed("<red>You are not in a queue."))
+        }
+    }
+
     private fun handleCreate(sender: CommandSender, gameType: String, gameId: String): CommandResult {
         if (!sender.requirePermission(Permissions.CREATE)) {
             return CommandResult.Error(prefixed("<red>You don't have permission to create minigames."))
@@ -333,7 +370,7 @@ class MinigameCommand(private val plugin: IremiaMinigameCorePlugin) : CommandExe
     // Tab Completion Helpers
 
     private fun getAvailableCommands(sender: CommandSender): List<String> {
-        val commands = mutableListOf("join", "leave", "list", "help")
+        val commands = mutableListOf("join", "leave", "queue", "unqueue", "list", "help")
 
         if (sender.hasPermission(Permissions.CREATE)) commands.add("create")
         if (sender.hasPermission(Permissions.START)) commands.add("start")
@@ -350,7 +387,7 @@ class MinigameCommand(private val plugin: IremiaMinigameCorePlugin) : CommandExe
             "join", "start", "end", "setmin", "setmax", "setspawn" -> {
                 minigameManager.getActiveGames().keys.filter { it.startsWith(prefix, ignoreCase = true) }
             }
-            "create" -> {
+            "create", "queue" -> {
                 minigameManager.getMinigameTypes().filter { it.startsWith(prefix, ignoreCase = true) }
             }
             else -> emptyList()
@@ -379,6 +416,8 @@ class MinigameCommand(private val plugin: IremiaMinigameCorePlugin) : CommandExe
         val helpEntries = listOf(
             "/minigame join <gameId>" to "Join a minigame",
             "/minigame leave" to "Leave your current minigame",
+            "/minigame queue <type>" to "Queue for a minigame type",
+            "/minigame unqueue" to "Leave the matchmaking queue",
             "/minigame list" to "List all active minigames"
         ).toMutableList()
 
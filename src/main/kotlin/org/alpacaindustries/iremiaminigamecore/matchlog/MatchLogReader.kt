@@ -0,0 +1,196 @@
+package org.alpacaindustries.iremiaminigamecore.matchlog
+
+import java.io.File
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.charset.StandardCharsets
+import java.nio.file.StandardOpenOption
+import java.util.*
+import java.util.function.Consumer
+import java.util.zip.CRC32
+
+/**
+ * Reads match logs written by [MatchLogService].
+ *
+ * Reading blocks on file I/O, so call it off the main thread, e.g. through `AsyncUtils.runAsync`.
+ * Logs of matches still running can be read too; a record that is only partly written yet is
+ * left out.
+ */
+class MatchLogReader internal constructor(private val directory: File) {
+
+    /**
+     * Get the IDs of all logged matches, oldest first.
+     */
+    fun listMatches(): List<String> =
+        directory.listFiles { file -> file.isDirectory }
+            ?.sortedWith(compareBy<File> { it.lastModified() }.thenBy { it.name })
+            ?.map { it.name }
+            ?: emptyList()
+
+    /**
+     * Read all events of a match in the order they were recorded.
+     *
+     * @param matchId ID of the match, see [MatchLog.matchId]
+     * @return the events, empty if the match is unknown
+     */
+    fun read(matchId: String): List<MatchEvent> {
+        val events = ArrayList<MatchEvent>()
+        forEach(matchId) { events.add(it) }
+        return events
+    }
+
+    /**
+     * Stream the events of a match without holding them all in memory.
+     *
+     * @param matchId ID of the match, see [MatchLog.matchId]
+     * @param action Called with each event in the order they were recorded
+     */
+    fun forEach(matchId: String, action: Consumer<MatchEvent>) {
+        MatchRecords.segments(File(directory, matchId)).forEach { segment ->
+            try {
+                FileChannel.open(segment.toPath(), StandardOpenOption.READ).use { channel ->
+                    val buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    while (true) {
+                        val event = MatchRecords.decode(buffer) ?: break
+                        if (event !== MatchRecords.SKIPPED) {
+                            action.accept(event)
+                        }
+                    }
+                }
+            } catch (e: IOException) {
+                throw IllegalStateException("Could not read match log segment ${segment.name} of $matchId", e)
+            }
+        }
+    }
+}
+
+/**
+ * Kinds of match log records. Stored by code, so codes must never change.
+ */
+enum class MatchEventType(internal val code: Byte) {
+    JOIN(1),
+    LEAVE(2),
+    STATE_CHANGE(3),
+    ELIMINATION(4),
+    CUSTOM(5);
+
+    companion object {
+        private val byCode = entries.associateBy { it.code }
+
+        internal fun fromCode(code: Byte): MatchEventType? = byCode[code]
+    }
+}
+
+/**
+ * One record of a match log
+ *
+ * @property type Kind of record
+ * @property timestamp Time the event happened, in epoch milliseconds
+ * @property playerId Player the event is about, or null
+ * @property detail Old and new state as `OLD->NEW` for state changes, the reason for
+ * eliminations, the event name for custom events, otherwise empty
+ * @property data Payload of custom events, otherwise empty
+ */
+class MatchEvent(
+    val type: MatchEventType,
+    val timestamp: Long,
+    val playerId: UUID?,
+    val detail: String,
+    val data: ByteArray
+) {
+    override fun toString(): String = "MatchEvent($type, $timestamp, $playerId, $detail, ${data.size} bytes)"
+}
+
+/**
+ * Binary record format shared by the writer and the reader.
+ *
+ * Each record is `length:int type:byte timestamp:long player:long,long detailLength:short detail
+ * dataLength:int data crc:int`, big-endian, where length counts everything after itself and the
+ * CRC32 covers everything between length and checksum. No player is stored as a zero UUID.
+ */
+internal object MatchRecords {
+
+    private const val MIN_LENGTH = 1 + 8 + 16 + 2 + 4 + 4
+
+    private val EMPTY = ByteArray(0)
+
+    /**
+     * Returned by [decode] for intact records of a type this version does not know
+     */
+    val SKIPPED = MatchEvent(MatchEventType.CUSTOM, 0, null, "", EMPTY)
+
+    fun encode(type: MatchEventType, timestamp: Long, playerId: UUID?, detail: String, data: ByteArray): ByteBuffer {
+        var detailBytes = detail.toByteArray(StandardCharsets.UTF_8)
+        if (detailBytes.size > 0xFFFF) {
+            detailBytes = detailBytes.copyOf(0xFFFF)
+        }
+        val length = MIN_LENGTH + detailBytes.size + data.size
+
+        val buffer = ByteBuffer.allocate(4 + length)
+        buffer.putInt(length)
+        buffer.put(type.code)
+        buffer.putLong(timestamp)
+        buffer.putLong(playerId?.mostSignificantBits ?: 0L)
+        buffer.putLong(playerId?.leastSignificantBits ?: 0L)
+        buffer.putShort(detailBytes.size.toShort())
+        buffer.put(detailBytes)
+        buffer.putInt(data.size)
+        buffer.put(data)
+        val crc = CRC32().apply { update(buffer.array(), 4, length - 4) }
+        buffer.putInt(crc.value.toInt())
+        buffer.flip()
+        return buffer
+    }
+
+    /**
+     * Decode the record at the buffer's position and move past it.
+     *
+     * @return the event, [SKIPPED] for an unknown record type, or null at the end of the
+     * buffer or at a torn or corrupt record
+     */
+    fun decode(buffer: ByteBuffer): MatchEvent? {
+        if (buffer.remaining() < 4) {
+            return null
+        }
+        val start = buffer.position()
+        val length = buffer.getInt(start)
+        if (length < MIN_LENGTH || buffer.remaining() - 4 < length) {
+            return null
+        }
+
+        val body = buffer.slice(start + 4, length - 4)
+        val crc = CRC32().apply { update(body) }
+        if (crc.value.toInt() != buffer.getInt(start + length)) {
+            return null
+        }
+
+        buffer.position(start + 4)
+        val code = buffer.get()
+        val timestamp = buffer.long
+        val most = buffer.long
+        val least = buffer.long
+        val detailBytes = ByteArray(buffer.short.toInt() and 0xFFFF)
+        if (detailBytes.size > length - MIN_LENGTH) {
+            return null
+        }
+        buffer.get(detailBytes)
+        val dataSize = buffer.int
+        if (dataSize < 0 || dataSize != length - MIN_LENGTH - detailBytes.size) {
+            return null
+        }
+        val data = if (dataSize == 0) EMPTY else ByteArray(dataSize).also { buffer.get(it) }
+        buffer.position(start + 4 + length)
+
+        val type = MatchEventType.fromCode(code) ?: return SKIPPED
+        val playerId = if (most == 0L && least == 0L) null else UUID(most, least)
+        return MatchEvent(type, timestamp, playerId, String(detailBytes, StandardCharsets.UTF_8), data)
+    }
+
+    fun segmentFile(matchDirectory: File, index: Int): File = File(matchDirectory, String.format("%06d.seg", index))
+
+    fun segments(matchDirectory: File): List<File> =
+        matchDirectory.listFiles { file -> file.isFile && file.name.endsWith(".seg") }
+            ?.sortedBy { it.name }
+            ?: emptyList()
+}
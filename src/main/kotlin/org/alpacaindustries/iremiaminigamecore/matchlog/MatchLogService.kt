@@ -0,0 +1,281 @@
+package org.alpacaindustries.iremiaminigamecore.matchlog
+
+import org.alpacaindustries.iremiaminigamecore.minigame.MinigameState
+import java.io.File
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.StandardOpenOption
+import java.util.*
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import java.util.logging.Logger
+
+/**
+ * Append-only binary logs of what happened in each match.
+ *
+ * Recording an event only encodes a small record and queues it. A single background
+ * thread drains the queue, groups the records by match and writes each group with one
+ * gathering write. Every match gets its own directory of numbered segment files; a new
+ * segment starts once the current one reaches the segment size. Read logs back with
+ * [reader].
+ */
+class MatchLogService internal constructor(
+    private val logger: Logger,
+    private val directory: File,
+    private val segmentBytes: Long
+) {
+
+    private val queue = LinkedBlockingQueue<Command>()
+    private val matchCounter = AtomicLong(0)
+    private val writer = Thread(::run, "IremiaMinigameCore-MatchLog").apply { isDaemon = true }
+
+    // Open segments, only touched by the writer thread
+    private val openMatches = HashMap<String, OpenSegment>()
+
+    /**
+     * Reader for the logs in this service's directory
+     */
+    val reader = MatchLogReader(directory)
+
+    /**
+     * Start writing, after removing logs older than the retention period.
+     *
+     * @param retentionDays Days to keep logs of finished matches, 0 to keep them forever
+     */
+    fun start(retentionDays: Int) {
+        if (retentionDays > 0) {
+            queue.add(Command.Purge(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionDays.toLong())))
+        }
+        writer.start()
+    }
+
+    /**
+     * Open the log of a new match. Nothing is written until the first event.
+     *
+     * @param gameId ID of the minigame playing the match
+     */
+    fun open(gameId: String): MatchLog {
+        val safeId = gameId.replace(Regex("[^A-Za-z0-9._-]"), "_")
+        return MatchLog(this, "$safeId-${System.currentTimeMillis()}-${matchCounter.incrementAndGet()}")
+    }
+
+    /**
+     * Write everything queued, close all logs and stop the writer.
+     */
+    fun shutdown() {
+        if (!writer.isAlive) {
+            return
+        }
+        queue.add(Command.Stop)
+        try {
+            writer.join(10_000)
+            if (writer.isAlive) {
+                logger.warning("Timed out writing match logs")
+            }
+        } catch (e: InterruptedException) {
+            Thread.currentThread().interrupt()
+        }
+    }
+
+    internal fun append(matchId: String, record: ByteBuffer) {
+        queue.add(Command.Append(matchId, record))
+    }
+
+    internal fun close(matchId: String) {
+        queue.add(Command.Close(matchId))
+    }
+
+    private fun run() {
+        val batch = ArrayList<Command>()
+        while (true) {
+            try {
+                batch.add(queue.take())
+            } catch (e: InterruptedException) {
+                break
+            }
+            queue.drainTo(batch)
+
+            // Group appends by match, keeping their order; closes apply after the match's appends
+            val appends = LinkedHashMap<String, ArrayList<ByteBuffer>>()
+            val closes = ArrayList<String>()
+            var stop = false
+            batch.forEach { command ->
+                when (command) {
+                    is Command.Append -> appends.getOrPut(command.matchId) { ArrayList() }.add(command.record)
+                    is Command.Close -> closes.add(command.matchId)
+                    is Command.Purge -> purge(command.before)
+                    Command.Stop -> stop = true
+                }
+            }
+            batch.clear()
+
+            appends.forEach { (matchId, records) -> write(matchId, records) }
+            closes.forEach { closeSegment(it) }
+            if (stop) {
+                break
+            }
+        }
+        openMatches.keys.toList().forEach { closeSegment(it) }
+    }
+
+    private fun write(matchId: String, records: List<ByteBuffer>) {
+        try {
+            var segment = openMatches[matchId] ?: openSegment(matchId)
+            var from = 0
+            while (from < records.size) {
+                // Take as many records as fit into the current segment, at least one
+                var to = from
+                var bytes = 0L
+                while (to < records.size && (to == from || segment.size + bytes + records[to].remaining() <= segmentBytes)) {
+                    bytes += records[to].remaining()
+                    to++
+                }
+                if (segment.size > 0 && segment.size + bytes > segmentBytes) {
+                    segment = rotate(matchId, segment)
+                    continue
+                }
+
+                val group = records.subList(from, to).toTypedArray()
+                var written = 0L
+                while (written < bytes) {
+                    written += segment.channel.write(group)
+                }
+                segment.size += bytes
+                from = to
+            }
+        } catch (e: IOException) {
+            logger.warning("Failed to write match log $matchId: ${e.message}")
+            closeSegment(matchId)
+        }
+    }
+
+    private fun openSegment(matchId: String): OpenSegment {
+        val matchDirectory = File(directory, matchId)
+        matchDirectory.mkdirs()
+        // Start a fresh segment if the match was written before, e.g. after a failed write,
+        // so a torn record at the end of the old one cannot hide the records after it
+        val last = MatchRecords.segments(matchDirectory).lastOrNull()?.name?.substringBefore('.')?.toIntOrNull()
+        return openSegment(matchId, if (last == null) 0 else last + 1)
+    }
+
+    private fun openSegment(matchId: String, index: Int): OpenSegment {
+        val file = MatchRecords.segmentFile(File(directory, matchId), index)
+        val channel = FileChannel.open(
+            file.toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND
+        )
+        return OpenSegment(channel, index, channel.size()).also { openMatches[matchId] = it }
+    }
+
+    private fun rotate(matchId: String, segment: OpenSegment): OpenSegment {
+        segment.channel.force(false)
+        segment.channel.close()
+        return openSegment(matchId, segment.index + 1)
+    }
+
+    private fun closeSegment(matchId: String) {
+        val segment = openMatches.remove(matchId) ?: return
+        try {
+            segment.channel.force(false)
+            segment.channel.close()
+        } catch (e: IOException) {
+            logger.warning("Failed to close match log $matchId: ${e.message}")
+        }
+    }
+
+    private fun purge(before: Long) {
+        var removed = 0
+        directory.listFiles { file -> file.isDirectory && file.lastModified() < before }?.forEach { matchDirectory ->
+            if (matchDirectory.deleteRecursively()) {
+                removed++
+            }
+        }
+        if (removed > 0) {
+            logger.info("Removed $removed expired match logs")
+        }
+    }
+
+    private class OpenSegment(val channel: FileChannel, val index: Int, var size: Long)
+
+    private sealed class Command {
+        class Append(val matchId: String, val record: ByteBuffer) : Command()
+        class Close(val matchId: String) : Command()
+        class Purge(val before: Long) : Command()
+        object Stop : Command()
+    }
+}
+
+/**
+ * Log of one match. Obtained from [MatchLogService.open]; events recorded after [close] are ignored.
+ * All methods are thread-safe and never block on I/O.
+ *
+ * @property matchId ID of the match, used to read the log back through [MatchLogReader]
+ */
+class MatchLog internal constructor(
+    private val service: MatchLogService,
+    val matchId: String
+) {
+
+    @Volatile
+    private var closed = false
+
+    /**
+     * Check if the log was closed
+     */
+    val isClosed: Boolean
+        get() = closed
+
+    /**
+     * Record that a player joined the match.
+     */
+    fun playerJoined(playerId: UUID) = record(MatchEventType.JOIN, playerId, "", NO_DATA)
+
+    /**
+     * Record that a player left the match.
+     */
+    fun playerLeft(playerId: UUID) = record(MatchEventType.LEAVE, playerId, "", NO_DATA)
+
+    /**
+     * Record a state change of the minigame.
+     */
+    fun stateChanged(oldState: MinigameState, newState: MinigameState) =
+        record(MatchEventType.STATE_CHANGE, null, "${oldState.name}->${newState.name}", NO_DATA)
+
+    /**
+     * Record that a player was eliminated, and why.
+     */
+    fun playerEliminated(playerId: UUID, reason: String) = record(MatchEventType.ELIMINATION, playerId, reason, NO_DATA)
+
+    /**
+     * Record a game-specific event.
+     *
+     * @param name Name of the event
+     * @param playerId Player the event is about, or null
+     * @param data Payload in a format of the minigame's choosing
+     */
+    @JvmOverloads
+    fun custom(name: String, playerId: UUID? = null, data: ByteArray = NO_DATA) =
+        record(MatchEventType.CUSTOM, playerId, name, data)
+
+    /**
+     * Stop recording and close the log files once everything recorded so far is written.
+     */
+    fun close() {
+        if (!closed) {
+            closed = true
+            service.close(matchId)
+        }
+    }
+
+    private fun record(type: MatchEventType, playerId: UUID?, detail: String, data: ByteArray) {
+        if (!closed) {
+            service.append(matchId, MatchRecords.encode(type, System.currentTimeMillis(), playerId, detail, data))
+        }
+    }
+
+    private companion object {
+        val NO_DATA = ByteArray(0)
+    }
+}
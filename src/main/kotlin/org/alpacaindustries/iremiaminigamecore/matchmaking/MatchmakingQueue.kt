@@ -0,0 +1,227 @@
+package org.alpacaindustries.iremiaminigamecore.matchmaking
+
+import java.util.*
+
+/**
+ * Waiting tickets of one minigame type, grouped into matches in batches.
+ *
+ * Parties are queued as a single ticket and are never split across matches.
+ * All methods are synchronized; grouping only touches the tickets of this queue.
+ */
+class MatchmakingQueue internal constructor(
+    val typeId: String,
+    @Volatile var settings: QueueSettings
+) {
+
+    private val tickets = LinkedHashMap<UUID, QueueTicket>()
+    private val ticketsByPlayer = HashMap<UUID, QueueTicket>()
+
+    // Kept sorted as tickets come and go, so rating grouping never sorts the whole queue
+    private val ratingIndex = TreeSet(compareBy<QueueTicket> { it.rating }.thenBy { it.id })
+
+    /**
+     * Statistics of this queue
+     */
+    val stats = QueueStats()
+
+    /**
+     * Number of players waiting
+     */
+    @get:Synchronized
+    val depth: Int
+        get() = ticketsByPlayer.size
+
+    /**
+     * Number of tickets (players or parties) waiting
+     */
+    @get:Synchronized
+    val ticketCount: Int
+        get() = tickets.size
+
+    @Synchronized
+    internal fun add(ticket: QueueTicket): Boolean {
+        if (tickets.containsKey(ticket.id) || ticket.members.any { ticketsByPlayer.containsKey(it) }) {
+            return false
+        }
+        tickets[ticket.id] = ticket
+        ticket.members.forEach { ticketsByPlayer[it] = ticket }
+        ratingIndex.add(ticket)
+        return true
+    }
+
+    /**
+     * Remove a player's ticket. Party members leave together.
+     *
+     * @return the removed ticket, or null if the player was not queued
+     */
+    @Synchronized
+    internal fun remove(playerId: UUID): QueueTicket? {
+        val ticket = ticketsByPlayer[playerId] ?: return null
+        tickets.remove(ticket.id)
+        ticket.members.forEach { ticketsByPlayer.remove(it) }
+        ratingIndex.remove(ticket)
+        return ticket
+    }
+
+    @Synchronized
+    fun contains(playerId: UUID): Boolean = ticketsByPlayer.containsKey(playerId)
+
+    /**
+     * Form every match that is ready now and remove its tickets from the queue.
+     * A group is ready when it is full, or when it has enough players and its
+     * oldest ticket has waited longer than the configured maximum.
+     *
+     * @param now Current time in milliseconds
+     */
+    @Synchronized
+    internal fun drainReadyGroups(now: Long): List<List<QueueTicket>> {
+        if (tickets.isEmpty()) {
+            return emptyList()
+        }
+
+        val current = settings
+        val groups = when (current.grouping) {
+            GroupingStrategy.ARRIVAL -> nextFit(tickets.values, current.maxPlayers, Double.POSITIVE_INFINITY)
+            GroupingStrategy.RATING -> nextFit(ratingIndex, current.maxPlayers, current.maxRatingSpread)
+            GroupingStrategy.PARTY -> firstFitDecreasing(tickets.values.toList(), current.maxPlayers)
+        }
+
+        val ready = ArrayList<List<QueueTicket>>()
+        for (group in groups) {
+            val size = group.sumOf { it.size }
+            val oldest = group.minOf { it.enqueuedAt }
+            val full = size >= current.maxPlayers
+            val waitedLongEnough = size >= current.minPlayers && now - oldest >= current.maxWaitMillis
+            if (full || waitedLongEnough) {
+                group.forEach { ticket ->
+                    tickets.remove(ticket.id)
+                    ticket.members.forEach { ticketsByPlayer.remove(it) }
+                    ratingIndex.remove(ticket)
+                }
+                ready.add(group)
+            }
+        }
+        return ready
+    }
+
+    @Synchronized
+    internal fun clear(): List<QueueTicket> {
+        val removed = tickets.values.toList()
+        tickets.clear()
+        ticketsByPlayer.clear()
+        ratingIndex.clear()
+        return removed
+    }
+
+    /**
+     * Fill one group at a time in the given order. Keeps arrival or rating order intact.
+     * A new group is also started when the rating range of the current one would exceed the spread.
+     */
+    private fun nextFit(ordered: Iterable<QueueTicket>, capacity: Int, spread: Double): List<List<QueueTicket>> {
+        val groups = ArrayList<MutableList<QueueTicket>>()
+        var group = ArrayList<QueueTicket>()
+        var size = 0
+        for (ticket in ordered) {
+            if (ticket.size > capacity) {
+                continue // Party too large for this type, never matchable
+            }
+            if (size + ticket.size > capacity || (group.isNotEmpty() && ticket.rating - group[0].rating > spread)) {
+                groups.add(group)
+                group = ArrayList()
+                size = 0
+            }
+            group.add(ticket)
+            size += ticket.size
+        }
+        if (group.isNotEmpty()) {
+            groups.add(group)
+        }
+        return groups
+    }
+
+    /**
+     * Place the largest parties first, each into the first group with room.
+     * Packs mixed party sizes into the fewest matches.
+     */
+    private fun firstFitDecreasing(unordered: List<QueueTicket>, capacity: Int): List<List<QueueTicket>> {
+        val ordered = unordered.sortedWith(compareByDescending<QueueTicket> { it.size }.thenBy { it.enqueuedAt })
+        val groups = ArrayList<MutableList<QueueTicket>>()
+        val sizes = ArrayList<Int>()
+        for (ticket in ordered) {
+            if (ticket.size > capacity) {
+                continue
+            }
+            val index = sizes.indexOfFirst { it + ticket.size <= capacity }
+            if (index >= 0) {
+                groups[index].add(ticket)
+                sizes[index] += ticket.size
+            } else {
+                groups.add(mutableListOf(ticket))
+                sizes.add(ticket.size)
+            }
+        }
+        return groups
+    }
+}
+
+/**
+ * How queued tickets are grouped into matches
+ */
+enum class GroupingStrategy {
+    /**
+     * First come, first served
+     */
+    ARRIVAL,
+
+    /**
+     * Pack parties of different sizes into as few matches as possible
+     */
+    PARTY,
+
+    /**
+     * Group tickets with similar ratings
+     */
+    RATING
+}
+
+/**
+ * Matchmaking settings of one minigame type
+ *
+ * @property minPlayers Smallest match formed once a ticket has waited [maxWaitMillis]
+ * @property maxPlayers Match size; full matches are formed immediately
+ * @property maxWaitMillis How long to wait for a full match before starting a smaller one
+ * @property grouping How tickets are grouped
+ * @property maxRatingSpread Largest rating difference within a match for [GroupingStrategy.RATING]
+ */
+data class QueueSettings @JvmOverloads constructor(
+    val minPlayers: Int,
+    val maxPlayers: Int,
+    val maxWaitMillis: Long,
+    val grouping: GroupingStrategy = GroupingStrategy.ARRIVAL,
+    val maxRatingSpread: Double = Double.POSITIVE_INFINITY
+) {
+    init {
+        require(maxRatingSpread >= 0) { "Maximum rating spread cannot be negative" }
+        require(minPlayers >= 1) { "Minimum players must be at least 1" }
+        require(maxPlayers >= minPlayers) { "Maximum players cannot be less than minimum players" }
+        require(maxWaitMillis >= 0) { "Maximum wait cannot be negative" }
+    }
+}
+
+/**
+ * A player or party waiting in a queue
+ *
+ * @property members Players that must be placed in the same match
+ * @property rating Average rating of the members, used by [GroupingStrategy.RATING]
+ */
+class QueueTicket internal constructor(
+    val members: List<UUID>,
+    val partyId: UUID?,
+    val rating: Double,
+    val enqueuedAt: Long
+) {
+    internal val id: UUID = partyId ?: members.first()
+
+    val size: Int
+        get() = members.size
+}
@@ -0,0 +1,285 @@
+package org.alpacaindustries.iremiaminigamecore.matchmaking
+
+import org.alpacaindustries.iremiaminigamecore.minigame.MinigameConfig
+import org.alpacaindustries.iremiaminigamecore.minigame.MinigameManager
+import org.alpacaindustries.iremiaminigamecore.util.TickScheduler
+import org.bukkit.entity.Player
+import java.util.*
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Queues players per minigame type and assigns them to games in batches.
+ *
+ * Players are not added one by one as they queue. Every matchmaking interval each
+ * queue is grouped at once and every ready group is sent to a single pooled or new
+ * instance, so a join storm turns into a few assignments per interval.
+ */
+class MatchmakingService internal constructor(private val manager: MinigameManager) {
+
+    private val queues = ConcurrentHashMap<String, MatchmakingQueue>()
+    private val playerQueues = ConcurrentHashMap<UUID, String>()
+    private val matchCounter = AtomicLong(0)
+    // Queues opened with the config defaults, sized to the type's own limits once a game of it exists
+    private val defaultSized = ConcurrentHashMap.newKeySet<String>()
+    private var task: TickScheduler.Handle? = null
+
+    /**
+     * Supplies player ratings for [GroupingStrategy.RATING]. Defaults to the manager's rating service.
+     */
+    @Volatile
+    var ratingProvider: RatingProvider = manager.ratings
+
+    /**
+     * Start forming matches every matchmaking interval.
+     */
+    @Synchronized
+    fun start() {
+        if (task == null) {
+            val interval = MinigameConfig.getMatchmakingIntervalTicks().toLong()
+            task = manager.plugin.tickScheduler.scheduleRepeating({ processQueues() }, interval, interval)
+        }
+    }
+
+    /**
+     * Stop forming matches and empty all queues.
+     */
+    @Synchronized
+    fun shutdown() {
+        task?.cancel()
+        task = null
+        queues.values.forEach { it.clear() }
+        playerQueues.clear()
+    }
+
+    /**
+     * Create or reconfigure the queue of a minigame type.
+     *
+     * @param typeId Minigame type
+     * @param settings Match size, maximum wait and grouping of the queue
+     * @return The queue
+     */
+    fun openQueue(typeId: String, settings: QueueSettings): MatchmakingQueue {
+        val typeKey = typeId.trim().lowercase()
+        require(typeKey in manager.getMinigameTypes()) { "Unknown minigame type: $typeId" }
+        defaultSized.remove(typeKey)
+        return queues.compute(typeKey) { _, existing ->
+            existing?.also { it.settings = settings } ?: MatchmakingQueue(typeKey, settings)
+        }!!
+    }
+
+    /**
+     * Get the queue of a minigame type, if it was opened.
+     */
+    fun getQueue(typeId: String): MatchmakingQueue? = queues[typeId.trim().lowercase()]
+
+    /**
+     * Get all open queues keyed by minigame type.
+     */
+    fun getQueues(): Map<String, MatchmakingQueue> = queues.toMap()
+
+    /**
+     * Queue a player for a minigame type.
+     */
+    fun enqueue(player: Player, typeId: String): EnqueueResult = enqueue(listOf(player), typeId, null)
+
+    /**
+     * Queue players for a minigame type. With a party ID they are always placed in the same match.
+     *
+     * @param players Players to queue
+     * @param typeId Minigame type
+     * @param partyId Party the players belong to, or null to queue them individually
+     * @return result of the queue attempt, applying to all players
+     */
+    fun enqueue(players: Collection<Player>, typeId: String, partyId: UUID?): EnqueueResult {
+        if (players.isEmpty()) {
+            return EnqueueResult.Queued
+        }
+
+        val typeKey = typeId.trim().lowercase()
+        if (typeKey !in manager.getMinigameTypes()) {
+            return EnqueueResult.UnknownType
+        }
+        if (players.any { manager.isPlayerInGame(it) }) {
+            return EnqueueResult.AlreadyInGame
+        }
+
+        val queue = queues.computeIfAbsent(typeKey) {
+            defaultSized.add(it)
+            MatchmakingQueue(it, defaultSettings())
+        }
+        val now = System.currentTimeMillis()
+        val tickets = if (partyId != null) {
+            val members = players.map { it.uniqueId }
+            listOf(QueueTicket(members, partyId, members.map { ratingProvider.getRating(typeKey, it) }.average(), now))
+        } else {
+            players.map { QueueTicket(listOf(it.uniqueId), null, ratingProvider.getRating(typeKey, it.uniqueId), now) }
+        }
+
+        if (tickets.any { it.size > queue.settings.maxPlayers }) {
+            return EnqueueResult.PartyTooLarge
+        }
+
+        synchronized(this) {
+            if (players.any { playerQueues.containsKey(it.uniqueId) }) {
+                return EnqueueResult.AlreadyQueued
+            }
+            tickets.forEach { ticket ->
+                if (!queue.add(ticket)) {
+                    return EnqueueResult.AlreadyQueued // Party already queued
+                }
+                ticket.members.forEach { playerQueues[it] = typeKey }
+            }
+        }
+        return EnqueueResult.Queued
+    }
+
+    /**
+     * Remove a player from whatever queue they are in. Their whole party leaves with them.
+     *
+     * @return true if the player was queued
+     */
+    @Synchronized
+    fun dequeue(playerId: UUID): Boolean {
+        val typeKey = playerQueues.remove(playerId) ?: return false
+        queues[typeKey]?.remove(playerId)?.members?.forEach { playerQueues.remove(it) }
+        return true
+    }
+
+    /**
+     * Check if a player is waiting in any queue.
+     */
+    fun isQueued(playerId: UUID): Boolean = playerQueues.containsKey(playerId)
+
+    /**
+     * Form and assign all ready matches now instead of waiting for the next interval.
+     * Must be called on the main thread.
+     */
+    fun processQueues() {
+        val now = System.currentTimeMillis()
+        queues.values.forEach { queue ->
+            try {
+                val groups = synchronized(this) {
+                    queue.drainReadyGroups(now).also { ready ->
+                        ready.forEach { group -> group.forEach { ticket -> ticket.members.forEach { playerQueues.remove(it) } } }
+                    }
+                }
+                groups.forEach { group -> assign(queue, group, now) }
+            } catch (e: Exception) {
+                manager.plugin.logger.warning("Error forming matches for ${queue.typeId}: ${e.message}")
+                e.printStackTrace()
+            }
+        }
+    }
+
+    private fun assign(queue: MatchmakingQueue, group: List<QueueTicket>, now: Long) {
+        val players = group.flatMap { it.members }.mapNotNull { manager.plugin.server.getPlayer(it) }
+        if (players.size < queue.settings.minPlayers) {
+            // Members went offline since grouping; requeue the rest at their original position
+            group.forEach { ticket ->
+                val online = ticket.members.filter { manager.plugin.server.getPlayer(it) != null }
+                if (online.isNotEmpty()) {
+                    requeue(queue, QueueTicket(online, ticket.partyId, ticket.rating, ticket.enqueuedAt))
+                }
+            }
+            return
+        }
+
+        val game = manager.createMinigame(queue.typeId, "match${matchCounter.incrementAndGet()}")
+        if (game == null) {
+            manager.plugin.logger.warning("Matchmaking could not create a ${queue.typeId} game, requeueing ${players.size} players")
+            group.forEach { requeue(queue, it) }
+            return
+        }
+        fitToType(queue, game.minPlayers, game.maxPlayers)
+
+        // Groups formed before the type's limits were known may not fit; the rest waits for the next match
+        var seats = game.maxPlayers - game.playerCount
+        val admitted = ArrayList<QueueTicket>()
+        group.forEach { ticket ->
+            if (ticket.size <= seats) {
+                admitted.add(ticket)
+                seats -= ticket.size
+            } else {
+                requeue(queue, ticket)
+            }
+        }
+        val admittedPlayers = admitted.flatMap { it.members }.mapNotNull { manager.plugin.server.getPlayer(it) }
+
+        // One batched join through the game's mailbox, so the game admits the group at once,
+        // updates its scoreboard once and never sees the join interleaved with its own timers
+        game.mailbox.execute {
+            val joined = manager.addPlayersToGame(admittedPlayers, game.id)
+            val joinedIds = joined.mapTo(HashSet()) { it.uniqueId }
+            admitted.forEach { ticket ->
+                repeat(ticket.members.count { it in joinedIds }) {
+                    queue.stats.recordAssignment(now - ticket.enqueuedAt, now)
+                }
+                // Rejected players keep their place in the queue
+                val waiting = ticket.members.filter { playerId ->
+                    playerId !in joinedIds && manager.plugin.server.getPlayer(playerId)?.let { !manager.isPlayerInGame(it) } == true
+                }
+                if (waiting.isNotEmpty()) {
+                    requeue(queue, QueueTicket(waiting, ticket.partyId, ticket.rating, ticket.enqueuedAt))
+                }
+            }
+            queue.stats.recordBatch()
+            manager.plugin.logger.fine("Matchmaking assigned ${joined.size} players to ${game.id}")
+
+            if (joined.isEmpty()) {
+                manager.plugin.logger.warning("${game.id} rejected its matchmaking group, requeueing ${admittedPlayers.size} players")
+                game.end()
+            }
+        }
+    }
+
+    /**
+     * Replace the config defaults of a queue with the player limits of its minigame type.
+     */
+    private fun fitToType(queue: MatchmakingQueue, minPlayers: Int, maxPlayers: Int) {
+        if (!defaultSized.remove(queue.typeId)) {
+            return
+        }
+        val current = queue.settings
+        queue.settings = current.copy(minPlayers = minPlayers, maxPlayers = maxPlayers.coerceAtLeast(minPlayers))
+    }
+
+    @Synchronized
+    private fun requeue(queue: MatchmakingQueue, ticket: QueueTicket) {
+        // Players who queued elsewhere in the meantime keep their new place
+        if (ticket.members.any { playerQueues.containsKey(it) }) {
+            return
+        }
+        if (queue.add(ticket)) {
+            ticket.members.forEach { playerQueues[it] = queue.typeId }
+        }
+    }
+
+    private fun defaultSettings(): QueueSettings {
+        val minPlayers = MinigameConfig.getDefaultMinPlayers()
+        return QueueSettings(
+            minPlayers,
+            MinigameConfig.getDefaultMaxPlayers().coerceAtLeast(minPlayers),
+            TimeUnit.SECONDS.toMillis(MinigameConfig.getMatchmakingMaxWaitSeconds().toLong())
+        )
+    }
+}
+
+/**
+ * Supplies the rating of a player for rating-based grouping
+ */
+fun interface RatingProvider {
+    fun getRating(typeId: String, playerId: UUID): Double
+}
+
+/**
+ * Result of attempting to queue players for matchmaking.
+ */
+sealed class EnqueueResult {
+    object Queued : EnqueueResult()
+    object AlreadyQueued : EnqueueResult()
+    object AlreadyInGame : EnqueueResult()
+    object UnknownType : EnqueueResult()
+    object PartyTooLarge : EnqueueResult()
+}
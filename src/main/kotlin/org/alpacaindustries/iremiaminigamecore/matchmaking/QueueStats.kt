@@ -0,0 +1,90 @@
+package org.alpacaindustries.iremiaminigamecore.matchmaking
+
+import java.util.concurrent.TimeUnit
+
+/**
+ * Wait-time and throughput statistics of a queue.
+ *
+ * Keeps the most recent wait times in a fixed ring, so percentiles reflect
+ * current load and memory stays constant.
+ */
+class QueueStats internal constructor(private val capacity: Int = DEFAULT_SAMPLES) {
+
+    companion object {
+        private const val DEFAULT_SAMPLES = 1024
+        private val THROUGHPUT_WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(1)
+    }
+
+    private val waits = LongArray(capacity)
+    private val assignedAt = LongArray(capacity)
+    private var next = 0
+    private var samples = 0
+    private var assignedPlayers = 0L
+    private var batches = 0L
+
+    /**
+     * Record one player leaving the queue into a match.
+     */
+    @Synchronized
+    internal fun recordAssignment(waitMillis: Long, now: Long) {
+        waits[next] = waitMillis
+        assignedAt[next] = now
+        next = (next + 1) % capacity
+        if (samples < capacity) {
+            samples++
+        }
+        assignedPlayers++
+    }
+
+    @Synchronized
+    internal fun recordBatch() {
+        batches++
+    }
+
+    /**
+     * Get a wait-time percentile over recent assignments.
+     *
+     * @param percentile Percentile between 0 and 100
+     * @return the wait time in milliseconds, or 0 if nobody was assigned yet
+     */
+    @Synchronized
+    fun getWaitPercentile(percentile: Double): Long {
+        require(percentile in 0.0..100.0) { "Percentile must be between 0 and 100" }
+        if (samples == 0) {
+            return 0
+        }
+        val sorted = waits.copyOf(samples)
+        sorted.sort()
+        val index = Math.ceil(percentile / 100.0 * samples).toInt().coerceIn(1, samples) - 1
+        return sorted[index]
+    }
+
+    /**
+     * Get the number of players assigned to matches in the last minute.
+     * Only counts the most recent samples, so very high rates are capped.
+     */
+    @Synchronized
+    fun getPlayersPerMinute(now: Long = System.currentTimeMillis()): Int {
+        var count = 0
+        for (i in 0 until samples) {
+            if (now - assignedAt[i] <= THROUGHPUT_WINDOW_MILLIS) {
+                count++
+            }
+        }
+        return count
+    }
+
+    /**
+     * Total number of players assigned to matches
+     */
+    @get:Synchronized
+    val totalAssigned: Long
+        get() = assignedPlayers
+
+    /**
+     * Total number of matches formed
+     */
+    @get:Synchronized
+    val totalBatches: Long
+        get() = batches
+}
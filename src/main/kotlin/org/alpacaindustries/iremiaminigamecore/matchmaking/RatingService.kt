@@ -0,0 +1,197 @@
+package org.alpacaindustries.iremiaminigamecore.matchmaking
+
+import org.bukkit.configuration.file.YamlConfiguration
+import java.io.File
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.util.*
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.logging.Logger
+import kotlin.math.pow
+
+/**
+ * Skill ratings per minigame type, updated from match placements.
+ *
+ * Uses pairwise Elo: every player is compared with every other player of the match,
+ * with players sharing a placement counting as a draw. New players move faster through
+ * a higher K-factor until they have played enough games, similar to Glicko's rating
+ * deviation. Updates happen in memory; changed ratings are written to disk in batches
+ * on a background thread.
+ */
+class RatingService internal constructor(
+    private val logger: Logger,
+    private val file: File
+) : RatingProvider {
+
+    companion object {
+        const val DEFAULT_RATING = 1500.0
+        private const val PROVISIONAL_K = 40.0
+        private const val ESTABLISHED_K = 20.0
+        private const val PROVISIONAL_GAMES = 10
+    }
+
+    private val ratings = ConcurrentHashMap<String, ConcurrentHashMap<UUID, PlayerRating>>()
+    private val writer: ExecutorService = Executors.newSingleThreadExecutor { task ->
+        Thread(task, "IremiaMinigameCore-Ratings").apply { isDaemon = true }
+    }
+
+    @Volatile
+    private var dirty = false
+
+    override fun getRating(typeId: String, playerId: UUID): Double =
+        ratings[typeId]?.get(playerId)?.rating ?: DEFAULT_RATING
+
+    /**
+     * Get the full rating record of a player, or null if they never finished a rated match.
+     */
+    fun getPlayerRating(typeId: String, playerId: UUID): PlayerRating? = ratings[typeId]?.get(playerId)
+
+    /**
+     * Get the best rated players of a type, highest first.
+     */
+    fun getTopPlayers(typeId: String, limit: Int): List<Pair<UUID, PlayerRating>> {
+        val typeRatings = ratings[typeId] ?: return emptyList()
+        return typeRatings.entries
+            .sortedByDescending { it.value.rating }
+            .take(limit)
+            .map { it.key to it.value }
+    }
+
+    /**
+     * Update ratings from the final placements of a match.
+     *
+     * @param typeId Minigame type the match was played in
+     * @param placements Players grouped by placement, best first; players in the same group tied
+     */
+    fun recordMatch(typeId: String, placements: List<Set<UUID>>) {
+        val ranked = ArrayList<Pair<UUID, Int>>()
+        placements.forEachIndexed { place, tier -> tier.forEach { ranked.add(it to place) } }
+        if (ranked.size < 2) {
+            return
+        }
+
+        val typeRatings = ratings.computeIfAbsent(typeId) { ConcurrentHashMap() }
+        val before = ranked.map { (playerId, _) -> typeRatings[playerId] ?: PlayerRating(DEFAULT_RATING, 0) }
+        val opponents = ranked.size - 1
+
+        ranked.forEachIndexed { i, (playerId, place) ->
+            var score = 0.0
+            var expected = 0.0
+            ranked.forEachIndexed { j, (_, otherPlace) ->
+                if (i != j) {
+                    score += when {
+                        place < otherPlace -> 1.0
+                        place == otherPlace -> 0.5
+                        else -> 0.0
+                    }
+                    expected += 1.0 / (1.0 + 10.0.pow((before[j].rating - before[i].rating) / 400.0))
+                }
+            }
+
+            val current = before[i]
+            val k = if (current.gamesPlayed < PROVISIONAL_GAMES) PROVISIONAL_K else ESTABLISHED_K
+            typeRatings[playerId] = PlayerRating(
+                current.rating + k * (score - expected) / opponents,
+                current.gamesPlayed + 1
+            )
+        }
+        dirty = true
+    }
+
+    /**
+     * Load ratings from disk, replacing those in memory.
+     */
+    fun load() {
+        if (!file.exists()) {
+            return
+        }
+
+        val yaml = YamlConfiguration.loadConfiguration(file)
+        ratings.clear()
+        yaml.getKeys(false).forEach { typeId ->
+            val section = yaml.getConfigurationSection(typeId) ?: return@forEach
+            val typeRatings = ConcurrentHashMap<UUID, PlayerRating>()
+            section.getKeys(false).forEach { key ->
+                try {
+                    typeRatings[UUID.fromString(key)] = PlayerRating(
+                        section.getDouble("$key.rating", DEFAULT_RATING),
+                        section.getInt("$key.games", 0)
+                    )
+                } catch (e: IllegalArgumentException) {
+                    logger.warning("Skipping invalid rating entry $typeId.$key")
+                }
+            }
+            ratings[typeId] = typeRatings
+        }
+        logger.info("Loaded ratings for ${ratings.values.sumOf { it.size }} players")
+    }
+
+    /**
+     * Write all ratings to disk on the background thread if any changed since the last flush.
+     * The snapshot is taken on the calling thread, so later updates are not lost.
+     */
+    fun flush() {
+        if (!dirty) {
+            return
+        }
+        dirty = false
+
+        val snapshot = ratings.mapValues { (_, typeRatings) -> HashMap(typeRatings) }
+        try {
+            writer.execute { write(snapshot) }
+        } catch (e: Exception) {
+            dirty = true
+            logger.warning("Could not queue rating save: ${e.message}")
+        }
+    }
+
+    /**
+     * Flush pending changes and wait for the background writer to finish.
+     */
+    fun shutdown() {
+        flush()
+        writer.shutdown()
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warning("Timed out saving ratings")
+            }
+        } catch (e: InterruptedException) {
+            Thread.currentThread().interrupt()
+        }
+    }
+
+    private fun write(snapshot: Map<String, Map<UUID, PlayerRating>>) {
+        val yaml = YamlConfiguration()
+        snapshot.forEach { (typeId, typeRatings) ->
+            typeRatings.forEach { (playerId, rating) ->
+                yaml.set("$typeId.$playerId.rating", rating.rating)
+                yaml.set("$typeId.$playerId.games", rating.gamesPlayed)
+            }
+        }
+
+        try {
+            file.parentFile?.mkdirs()
+            // Write next to the target and swap, so a crash never leaves a half-written file
+            val temp = File(file.parentFile, "${file.name}.tmp")
+            yaml.save(temp)
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+        } catch (e: Exception) {
+            dirty = true
+            logger.warning("Failed to save ratings: ${e.message}")
+        }
+    }
+}
+
+/**
+ * Rating of a player in one minigame type
+ *
+ * @property rating Elo rating, starting at [RatingService.DEFAULT_RATING]
+ * @property gamesPlayed Number of rated matches finished
+ */
+data class PlayerRating(
+    val rating: Double,
+    val gamesPlayed: Int
+)
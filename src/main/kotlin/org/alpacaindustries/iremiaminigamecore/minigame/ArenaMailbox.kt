@@ -0,0 +1,172 @@
+package org.alpacaindustries.iremiaminigamecore.minigame
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.Executor
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.logging.Logger
+
+/**
+ * Serial task queue of one minigame.
+ *
+ * Tasks run one at a time, in submission order, on the thread owning the arena. A task
+ * submitted while another one runs is queued behind it instead of running reentrantly,
+ * so timer callbacks, joins, leaves and state changes of a game never interleave. Games
+ * have their own mailboxes and drain independently of each other.
+ *
+ * When the submitting thread already owns the arena and the mailbox is idle, the task
+ * runs immediately, so on a classic server submitting from the main thread costs no tick.
+ */
+class ArenaMailbox internal constructor(
+    private val target: Executor,
+    private val logger: Logger
+) : Executor {
+
+    private companion object {
+        // Longest a caller on another thread waits in await, e.g. for a stalled tick
+        const val AWAIT_TIMEOUT_SECONDS = 30L
+    }
+
+    private val queue = ConcurrentLinkedQueue<Runnable>()
+    private val pending = AtomicInteger(0)
+    private val draining = AtomicBoolean(false)
+
+    @Volatile
+    private var owner: Thread? = null
+
+    /**
+     * Number of tasks waiting to run
+     */
+    val pendingCount: Int
+        get() = pending.get()
+
+    /**
+     * Check if the current thread is running a task of this mailbox
+     */
+    val isCurrentThread: Boolean
+        get() = owner === Thread.currentThread()
+
+    /**
+     * Queue a task behind all tasks submitted before it.
+     */
+    override fun execute(task: Runnable) {
+        queue.add(task)
+        pending.incrementAndGet()
+        scheduleDrain()
+    }
+
+    /**
+     * Queue a task and get its result once it ran. The future fails with a
+     * [RejectedExecutionException] if the mailbox cannot be scheduled any more.
+     */
+    fun <T> submit(task: Callable<T>): CompletableFuture<T> {
+        val submitted = Submitted(task)
+        execute(submitted)
+        return submitted.future
+    }
+
+    /**
+     * Queue a task and wait for its result. Runs it right away when called from a task of
+     * this mailbox. A caller owning the arena thread drains the queue itself, since the drain
+     * it would wait for is scheduled on its own thread. Other callers wait at most
+     * 30 seconds.
+     *
+     * @param ownsTarget Whether the calling thread is the one tasks run on
+     * @return the result of the task
+     * @throws RejectedExecutionException if the mailbox cannot be scheduled any more
+     * @throws IllegalStateException if the task did not run in time; it may still run later
+     */
+    fun <T> await(task: Callable<T>, ownsTarget: Boolean): T {
+        if (isCurrentThread) {
+            return task.call()
+        }
+        val future = submit(task)
+        if (ownsTarget && !future.isDone) {
+            drain()
+        }
+        try {
+            return future.orTimeout(AWAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS).join()
+        } catch (e: CompletionException) {
+            val cause = e.cause ?: e
+            if (cause is TimeoutException) {
+                throw IllegalStateException("Minigame task did not run within $AWAIT_TIMEOUT_SECONDS seconds", cause)
+            }
+            throw cause
+        }
+    }
+
+    private fun scheduleDrain() {
+        if (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+            try {
+                target.execute(::drain)
+            } catch (e: Exception) {
+                logger.warning("Could not schedule minigame mailbox: ${e.message}")
+                reject(e)
+            }
+        }
+    }
+
+    /**
+     * Drop the queued tasks after the target refused to run them, failing the futures of
+     * submitted ones so their callers do not wait forever.
+     */
+    private fun reject(cause: Exception) {
+        var dropped = 0
+        while (true) {
+            val task = queue.poll() ?: break
+            pending.decrementAndGet()
+            if (task is Submitted<*>) {
+                task.future.completeExceptionally(RejectedExecutionException("Minigame mailbox is not running", cause))
+            } else {
+                dropped++
+            }
+        }
+        if (dropped > 0) {
+            logger.warning("Dropped $dropped queued minigame tasks")
+        }
+        draining.set(false)
+        // Tasks queued while the flag was held
+        if (!queue.isEmpty()) {
+            scheduleDrain()
+        }
+    }
+
+    private fun drain() {
+        owner = Thread.currentThread()
+        try {
+            while (true) {
+                val task = queue.poll() ?: break
+                pending.decrementAndGet()
+                try {
+                    task.run()
+                } catch (e: Exception) {
+                    logger.warning("Error in minigame task: ${e.message}")
+                    e.printStackTrace()
+                }
+            }
+        } finally {
+            owner = null
+            draining.set(false)
+        }
+        // Tasks queued after the last poll but before the flag was released
+        scheduleDrain()
+    }
+
+    private class Submitted<T>(private val task: Callable<T>) : Runnable {
+        val future = CompletableFuture<T>()
+
+        override fun run() {
+            try {
+                future.complete(task.call())
+            } catch (e: Exception) {
+                future.completeExceptionally(e)
+            }
+        }
+    }
+}
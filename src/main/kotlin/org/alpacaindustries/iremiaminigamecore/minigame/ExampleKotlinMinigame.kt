@@ -15,6 +15,10 @@ class ExampleKotlinMinigame(
 
     override val gamePrefix: Component = Component.text("[Example] ", NamedTextColor.GREEN)
 
+    // No state beyond what SurvivalMinigame resets on recycle
+    override val isReusable: Boolean
+        get() = true
+
     override fun preparePlayer(player: Player) {
         player.health = 20.0
         player.foodLevel = 20
@@ -27,10 +31,13 @@ class ExampleKotlinMinigame(
     }
 
     override fun updateScoreboard() {
-        scoreboard.setLine(1, Component.text("Alive: ", NamedTextColor.GREEN)
-            .append(Component.text("${alivePlayers.size}", NamedTextColor.WHITE)))
-        scoreboard.setLine(2, Component.text("Total: ", NamedTextColor.YELLOW)
-            .append(Component.text("$playerCount", NamedTextColor.WHITE)))
+        val snapshot = participants.snapshot()
+        scoreboard.render(mapOf(
+            1 to Component.text("Alive: ", NamedTextColor.GREEN)
+                .append(Component.text("${snapshot.alive}", NamedTextColor.WHITE)),
+            2 to Component.text("Total: ", NamedTextColor.YELLOW)
+                .append(Component.text("$playerCount", NamedTextColor.WHITE))
+        ))
     }
 
     override fun broadcastGameStart() {
@@ -38,7 +45,7 @@ class ExampleKotlinMinigame(
     }
 
     override fun handleGameEnd() {
-        val winner = alivePlayers.firstOrNull()?.let { getPlayerById(it) }
+        val winner = alivePlayerIds.firstOrNull()?.let { getPlayerById(it) }
 
         if (winner != null) {
             broadcastMessage(gamePrefix.append(
@@ -52,7 +59,7 @@ class ExampleKotlinMinigame(
     }
 
     override fun shouldEndGame(): Boolean {
-        return alivePlayers.size <= 1
+        return participants.aliveCount <= 1
     }
 
     override fun onPlayerEliminated(player: Player) {
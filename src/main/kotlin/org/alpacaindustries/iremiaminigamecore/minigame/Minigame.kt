@@ -1,38 +1,103 @@
 package org.alpacaindustries.iremiaminigamecore.minigame
 
+import io.papermc.lib.PaperLib
+import kotlinx.coroutines.CancellableContinuation
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineExceptionHandler
+import kotlinx.coroutines.CoroutineName
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.isActive
+import kotlinx.coroutines.suspendCancellableCoroutine
 import net.kyori.adventure.text.Component
 import org.bukkit.GameMode
 import org.bukkit.Location
 import org.bukkit.entity.Player
+import org.bukkit.event.Event
 import org.bukkit.event.EventHandler
+import org.bukkit.event.EventPriority
 import org.bukkit.event.HandlerList
 import org.bukkit.event.Listener
+import org.bukkit.event.block.Action
+import org.bukkit.event.block.BlockBreakEvent
+import org.bukkit.event.block.BlockMultiPlaceEvent
+import org.bukkit.event.block.BlockPlaceEvent
+import org.bukkit.event.entity.EntityDamageEvent
+import org.bukkit.event.player.PlayerAnimationEvent
+import org.bukkit.event.player.PlayerBucketEmptyEvent
+import org.bukkit.event.player.PlayerBucketFillEvent
+import org.bukkit.event.player.PlayerInteractEvent
+import org.bukkit.util.BoundingBox
+import org.alpacaindustries.iremiaminigamecore.arena.ArenaSlot
+import org.alpacaindustries.iremiaminigamecore.arena.BlockRollback
+import org.alpacaindustries.iremiaminigamecore.arena.ChunkHold
+import org.alpacaindustries.iremiaminigamecore.matchlog.MatchLog
+import org.alpacaindustries.iremiaminigamecore.replay.ReplayAction
+import org.alpacaindustries.iremiaminigamecore.replay.ReplayRecorder
+import org.alpacaindustries.iremiaminigamecore.stats.StatType
+import org.alpacaindustries.iremiaminigamecore.util.GameScheduler
+import org.alpacaindustries.iremiaminigamecore.util.TickScheduler
+import java.io.File
+import java.io.IOException
 import java.util.*
+import java.util.concurrent.Callable
+import java.util.concurrent.CompletableFuture
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.Executor
+import java.util.concurrent.TimeUnit
 import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicReference
 import java.util.function.Consumer
+import kotlin.coroutines.resume
 
 /**
  * Base abstract class for all minigames.
  * Provides the core functionality and lifecycle management for minigames.
  *
- * This class is thread-safe for all public methods unless otherwise noted.
+ * This class is thread-safe for all public methods unless otherwise noted. State changes,
+ * joins and leaves run on the game's [mailbox], one at a time, whichever thread calls them:
+ * the public methods are thin wrappers that hand their work to the mailbox and wait for it.
+ * Timers, quits and matchmaking queue through it as well, so game state needs no locks.
  */
 abstract class Minigame(
-    val id: String,
+    id: String,
     val displayName: String,
     val manager: MinigameManager
 ) : Listener {
     companion object {
         @JvmStatic
         fun javaClass(): Class<Minigame> = Minigame::class.java
+
+        // Longest wait for players teleported out before the arena is rolled back under them
+        private const val DEPARTURE_TIMEOUT_SECONDS = 5L
     }
 
-    private val _players = Collections.synchronizedSet(mutableSetOf<UUID>())
+    // Changed only on the mailbox; concurrent so other threads can read it
+    private val _players: MutableSet<UUID> = ConcurrentHashMap.newKeySet()
+    // Players admitted whose join side effects have not run yet
+    private val pendingJoins: MutableSet<UUID> = ConcurrentHashMap.newKeySet()
     private val endListeners = Collections.synchronizedList(mutableListOf<Consumer<Minigame>>())
+    // Kept for the lifetime of the instance, unlike end listeners
+    private val startListeners = CopyOnWriteArrayList<Consumer<Minigame>>()
     private val playerCache = ConcurrentHashMap<UUID, Player>()
     private val isInitialized = AtomicBoolean(false)
     private val isDestroyed = AtomicBoolean(false)
+    // Log of the current match, opened on its first event and closed when the match ends
+    private val matchLog = AtomicReference<MatchLog?>()
+
+    @Volatile
+    private var replay: ReplayRecorder? = null
+
+    /**
+     * Unique ID of this minigame instance. Only changes when a pooled instance is recycled.
+     */
+    @Volatile
+    var id: String = id
+        private set
 
     @Volatile
     var spawnPoint: Location? = null
@@ -60,12 +125,66 @@ abstract class Minigame(
     @Volatile
     var isAllowJoinDuringGame: Boolean = false
 
+    /**
+     * Whether blocks changed during a match are restored after it ends.
+     * Set before [initialize]; [SurvivalMinigame] enables it by default.
+     */
+    @Volatile
+    var isRollbackEnabled: Boolean = false
+
+    /**
+     * Arena bounds in the spawn point's world. Explosions, fire, fluids and pistons inside
+     * them are restored too; without bounds only changes by players in the game are.
+     * Set before [start].
+     */
+    @Volatile
+    var rollbackRegion: BoundingBox? = null
+
+    /**
+     * Blocks changed during the current match, restored after it ends if [isRollbackEnabled]
+     */
+    val blockRollback: BlockRollback = BlockRollback(manager.plugin.logger)
+
+    @Volatile
+    private var pendingRollback: CompletableFuture<Int>? = null
+
+    /**
+     * Completes once the blocks changed in the last match are restored
+     */
+    open val rollbackDone: CompletableFuture<*>
+        get() = pendingRollback ?: CompletableFuture.completedFuture(0)
+
+    @Volatile
+    private var arenaSlot: ArenaSlot? = null
+
+    // Spawn point in the template world, restored once the copy is released
+    @Volatile
+    private var templateSpawnPoint: Location? = null
+
+    // Chunks around the spawn locations, loaded from the countdown until the match ends
+    private val spawnChunks = AtomicReference<ChunkHold?>()
+
+    @Volatile
+    private var awaitingSpawnChunks = false
+
+    // Teleports started through teleportAsync that have not arrived yet
+    private val pendingTeleports = ConcurrentHashMap.newKeySet<CompletableFuture<Boolean>>()
+
+    /**
+     * Copy of the arena template this instance plays in, if its type has one
+     */
+    open val arena: ArenaSlot?
+        get() = arenaSlot
+
     var shouldLoop: Boolean = false
         private set
 
     var loopDelayTicks: Long = 60L // Default: 3 seconds (20 ticks = 1 second)
         private set
 
+    @Volatile
+    private var loopRestartHandle: TickScheduler.Handle? = null
+
     init {
         require(id.trim().isNotEmpty()) { "Minigame ID cannot be empty" }
         require(displayName.trim().isNotEmpty()) { "Display name cannot be empty" }
@@ -77,8 +196,7 @@ abstract class Minigame(
     /**
      * Get an unmodifiable view of the players
      */
-    @get:JvmName("getPlayers")
-    val players: Set<UUID>
+    open val players: Set<UUID>
         get() = Collections.unmodifiableSet(_players)
 
     /**
@@ -103,7 +221,21 @@ abstract class Minigame(
         get() = isDestroyed.get()
 
     /**
-     * Initialize the minigame. Registers event listeners and sets initial state.
+     * ID of the current match's log, for reading it back through the manager's match logs.
+     * Null before the first event of a match, after it ended, or if match logs are disabled.
+     */
+    open val matchId: String?
+        get() = matchLog.get()?.matchId
+
+    /**
+     * Recorder of the running match's replay, or null if replays are off for this minigame's type
+     */
+    open val replayRecorder: ReplayRecorder?
+        get() = replay
+
+    /**
+     * Initialize the minigame. Sets initial state and registers legacy @EventHandler methods, if any.
+     * Subclasses should subscribe to events through [subscribe] after calling super.initialize().
      * This method is idempotent - calling it multiple times has no additional effect.
      */
     open fun initialize() {
@@ -117,15 +249,28 @@ abstract class Minigame(
         }
 
         setState(MinigameState.WAITING)
-        manager.plugin.server.pluginManager.registerEvents(this, manager.plugin)
+        // Games using the event router don't need their own Bukkit listener
+        if (hasLegacyEventHandlers()) {
+            manager.plugin.server.pluginManager.registerEvents(this, manager.plugin)
+        }
+        if (isReplayEnabled()) {
+            subscribeReplayActions()
+        }
+        if (isRollbackEnabled) {
+            subscribeRollback()
+        }
         manager.plugin.logger.fine("Minigame $id initialized successfully")
     }
 
     /**
      * Start the minigame. Only allowed from WAITING or COUNTDOWN state.
+     * Runs on the [mailbox].
      */
-    @Synchronized
     open fun start() {
+        onMailbox { startNow() }
+    }
+
+    private fun startNow() {
         checkNotDestroyed()
 
         if (state != MinigameState.WAITING && state != MinigameState.COUNTDOWN) {
@@ -138,8 +283,29 @@ abstract class Minigame(
             return
         }
 
+        // Nobody is sent into chunks that are still loading
+        if (!awaitSpawnChunks()) {
+            return
+        }
+
         setState(MinigameState.RUNNING)
         onStart()
+        val region = rollbackRegion
+        val world = spawnPoint?.world
+        if (isRollbackEnabled && region != null && world != null) {
+            manager.arenaBlocks.track(world, region, blockRollback)
+        }
+        if (isReplayEnabled()) {
+            startReplay()
+        }
+        startListeners.forEach { listener ->
+            try {
+                listener.accept(this)
+            } catch (e: Exception) {
+                manager.plugin.logger.warning("Error in start listener: ${e.message}")
+                e.printStackTrace()
+            }
+        }
     }
 
     /**
@@ -155,29 +321,193 @@ abstract class Minigame(
      * This is a smoother loop for continuous play.
      */
     private fun loopRestart() {
-        manager.plugin.server.scheduler.runTaskLater(
-            manager.plugin,
-            Runnable {
-                if (!isDestroyed.get()) {
-                    resetForNextRound()
-                    setState(MinigameState.COUNTDOWN)
-                    onCountdownStart()
+        // The next round starts on a restored arena
+        rollbackDone.whenComplete { _, _ ->
+            loopRestartHandle = manager.plugin.tickScheduler.schedule({
+                loopRestartHandle = null
+                mailbox.execute {
+                    if (!isDestroyed.get()) {
+                        resetForNextRound()
+                        setState(MinigameState.COUNTDOWN)
+                        onCountdownStart()
+                    }
                 }
-            },
-            loopDelayTicks
-        )
+            }, loopDelayTicks)
+        }
+    }
+
+    /**
+     * Executor that runs work on the thread owning this arena, see [runInArena].
+     * Timers whose callbacks touch the arena should dispatch through it.
+     */
+    val arenaExecutor: Executor = Executor { runInArena(it) }
+
+    /**
+     * Serial queue for everything that changes this game's state. Timer callbacks, loop
+     * restarts, health checks, quits and matchmaking joins are delivered through it, so they
+     * run one after another on the arena's thread instead of racing each other.
+     */
+    open val mailbox: ArenaMailbox = ArenaMailbox(arenaExecutor, manager.plugin.logger)
+
+    /**
+     * Add a player through the mailbox, after all work queued before it.
+     *
+     * @return a future completed with the result of [addPlayer]
+     */
+    fun addPlayerAsync(player: Player): CompletableFuture<Boolean> = mailbox.submit { addPlayer(player) }
+
+    /**
+     * Remove a player through the mailbox, after all work queued before it.
+     *
+     * @return a future completed with the result of [removePlayer]
+     */
+    fun removePlayerAsync(player: Player): CompletableFuture<Boolean> = mailbox.submit { removePlayer(player) }
+
+    /**
+     * Coroutine dispatcher that runs on this game's [mailbox]
+     */
+    val arenaDispatcher: CoroutineDispatcher by lazy { MailboxDispatcher(mailbox) }
+
+    /**
+     * Coroutine scope of the current round, running on [arenaDispatcher].
+     *
+     * Cancelled when the game ends or is destroyed, so coroutines launched in it (countdowns,
+     * delays, waits for players) never outlive the round. A looping or recycled game gets a
+     * fresh scope on next access.
+     */
+    open val coroutineScope: CoroutineScope
+        get() {
+            if (isDestroyed.get()) {
+                return CoroutineScope(arenaDispatcher + Job().apply { cancel() })
+            }
+            synchronized(scopeLock) {
+                return scope?.takeIf { it.isActive } ?: CoroutineScope(
+                    SupervisorJob() + arenaDispatcher + CoroutineName("minigame-$id") + coroutineErrorHandler
+                ).also { scope = it }
+            }
+        }
+
+    private val scopeLock = Any()
+    private var scope: CoroutineScope? = null
+    private val coroutineErrorHandler = CoroutineExceptionHandler { _, e ->
+        manager.plugin.logger.warning("Error in coroutine of minigame $id: ${e.message}")
+        e.printStackTrace()
+    }
+    private val playerCountWaiters = ConcurrentLinkedQueue<PlayerCountWaiter>()
+
+    private class PlayerCountWaiter(val count: Int, val continuation: CancellableContinuation<Unit>)
+
+    private fun cancelCoroutines() {
+        synchronized(scopeLock) {
+            scope?.cancel()
+            scope = null
+        }
+    }
+
+    /**
+     * Suspend for a number of server ticks without creating a scheduler task.
+     */
+    suspend fun delayTicks(ticks: Long) {
+        manager.plugin.tickScheduler.delayTicks(ticks)
+    }
+
+    /**
+     * Suspend until at least [count] players are in the game.
+     */
+    open suspend fun awaitPlayers(count: Int) {
+        if (_players.size >= count) {
+            return
+        }
+        suspendCancellableCoroutine { continuation ->
+            val waiter = PlayerCountWaiter(count, continuation)
+            playerCountWaiters.add(waiter)
+            continuation.invokeOnCancellation { playerCountWaiters.remove(waiter) }
+            // Players may have joined since the check above
+            notifyPlayerCountWaiters()
+        }
+    }
+
+    /**
+     * Count down one second at a time, calling [onSecond] with the seconds left before each.
+     * Ending the game cancels the countdown with the rest of [coroutineScope].
+     */
+    suspend fun countdown(seconds: Int, onSecond: suspend (Int) -> Unit = {}) {
+        for (secondsLeft in seconds downTo 1) {
+            onSecond(secondsLeft)
+            delayTicks(20L)
+        }
+    }
+
+    private fun notifyPlayerCountWaiters() {
+        if (playerCountWaiters.isEmpty()) {
+            return
+        }
+        val count = _players.size
+        playerCountWaiters.forEach { waiter ->
+            if (count >= waiter.count && playerCountWaiters.remove(waiter)) {
+                waiter.continuation.resume(Unit)
+            }
+        }
+    }
+
+    /**
+     * Run work that touches this arena on the thread that owns it: the region of the
+     * spawn point on a region-threaded server, the main thread otherwise. Runs
+     * immediately when already on that thread, so arenas on different regions
+     * never wait on each other.
+     */
+    fun runInArena(task: Runnable) {
+        val scheduler = manager.plugin.gameScheduler
+        val location = spawnPoint
+        if (location != null) {
+            scheduler.executeAt(location, task)
+        } else {
+            scheduler.executeGlobal(task)
+        }
+    }
+
+    /**
+     * Run work for this arena after a delay on the thread that owns it.
+     *
+     * @return the scheduled task, which can be cancelled
+     */
+    fun runInArenaLater(task: Runnable, delayTicks: Long): GameScheduler.Task {
+        val scheduler = manager.plugin.gameScheduler
+        val location = spawnPoint
+        return if (location != null) scheduler.runAt(location, task, delayTicks) else scheduler.runGlobal(task, delayTicks)
+    }
+
+    /**
+     * Run work that touches a player on the thread that owns the player, following
+     * them across regions. Runs immediately when already on that thread.
+     */
+    fun runForPlayer(player: Player, task: Runnable) {
+        manager.plugin.gameScheduler.executeFor(player, task)
+    }
+
+    /**
+     * Add to a persistent statistic of a player, counted for this minigame's type.
+     */
+    protected fun recordStat(playerId: UUID, stat: StatType, amount: Long = 1) {
+        manager.recordStat(id, playerId, stat, amount)
     }
 
     /**
-     * End the minigame and clean up resources.
+     * End the minigame and clean up resources. Runs on the [mailbox].
      */
-    @Synchronized
     open fun end() {
+        onMailbox { endNow() }
+    }
+
+    private fun endNow() {
         if (state == MinigameState.ENDED) {
             return
         }
 
         setState(MinigameState.ENDED)
+        // Countdowns and delays of this round must not outlive it
+        cancelCoroutines()
+        stopReplay()
 
         try {
             onEnd()
@@ -186,6 +516,10 @@ abstract class Minigame(
             e.printStackTrace()
         }
 
+        // Restores once the players teleported out by onEnd have left the arena
+        rollBackArena()
+        releaseSpawnChunks()
+
         // Notify all end listeners with error handling
         val listenersSnapshot = endListeners.toList()
         listenersSnapshot.forEach { listener ->
@@ -196,6 +530,7 @@ abstract class Minigame(
                 e.printStackTrace()
             }
         }
+        closeMatchLog()
 
         // Loop logic: schedule smooth restart if enabled
         if (shouldLoop && !isDestroyed.get()) {
@@ -215,16 +550,30 @@ abstract class Minigame(
         if (!isDestroyed.compareAndSet(false, true)) {
             return // Already destroyed
         }
+        onMailbox { destroyNow() }
+    }
 
+    private fun destroyNow() {
         try {
             // End the game if it's still running
             if (state != MinigameState.ENDED) {
                 end()
             }
 
+            loopRestartHandle?.cancel()
+            cancelCoroutines()
+            stopReplay()
+            closeMatchLog()
+            releaseSpawnChunks()
+            releaseArena()
+
             // Unregister event listeners
+            manager.eventRouter.unsubscribeAll(this)
             HandlerList.unregisterAll(this)
 
+            // A looping game destroyed between rounds is still registered with its players
+            manager.unregisterGame(this)
+
             // Final cleanup
             cleanup()
 
@@ -235,48 +584,225 @@ abstract class Minigame(
         }
     }
 
+    /**
+     * Prepare this minigame for reuse under a new ID.
+     * Called by the manager's instance pool on an ended or never-initialized minigame;
+     * the manager initializes it again afterwards. Subclasses reset their own state in [onRecycle].
+     *
+     * @param newId The ID the minigame will be known by
+     * @throws IllegalStateException if the minigame is destroyed or has not ended
+     */
+    fun recycle(newId: String) {
+        checkNotDestroyed()
+        require(newId.trim().isNotEmpty()) { "Minigame ID cannot be empty" }
+        check(!isInitialized.get() || state == MinigameState.ENDED) {
+            "Cannot recycle minigame $id in state $state"
+        }
+
+        loopRestartHandle?.cancel()
+        loopRestartHandle = null
+        cancelCoroutines()
+        stopReplay()
+        closeMatchLog()
+        releaseSpawnChunks()
+        manager.arenaBlocks.untrack(blockRollback)
+        manager.eventRouter.unsubscribeAll(this)
+        HandlerList.unregisterAll(this)
+        cleanup()
+
+        id = newId
+        state = MinigameState.WAITING
+        isInitialized.set(false)
+
+        onRecycle()
+    }
+
+    /**
+     * Play in a copy of the type's arena template. The spawn point moves to the same
+     * position in the copy, or to the copy's spawn if none was set.
+     * Called by [MinigameManager] before [initialize].
+     */
+    open fun assignArena(slot: ArenaSlot) {
+        releaseArena()
+        val home = spawnPoint
+        templateSpawnPoint = home
+        spawnPoint = home?.let(slot::translate) ?: slot.world.spawnLocation
+        arenaSlot = slot
+    }
+
+    /**
+     * Get where a player goes when the match is over. Players in an arena copy go to the
+     * lobby, since the copy is unloaded once released; others go to their world's spawn.
+     *
+     * @param player Player leaving the match
+     * @return the location to send the player to
+     */
+    protected open fun getReturnLocation(player: Player): Location {
+        if (arenaSlot != null) {
+            manager.arenas.lobbyLocation()?.let { return it }
+        }
+        return player.world.spawnLocation
+    }
+
+    /**
+     * Give the arena copy back to be discarded and move the spawn point back to the template world.
+     * Does nothing if this instance has no copy.
+     */
+    open fun releaseArena() {
+        val slot = arenaSlot ?: return
+        arenaSlot = null
+        spawnPoint = templateSpawnPoint
+        templateSpawnPoint = null
+        manager.arenas.release(slot)
+    }
+
+    /**
+     * Get the final placements of the last round, used to update player ratings.
+     * Override in minigames that rank their players.
+     *
+     * @return players grouped by placement, best first, with tied players in the same group;
+     * empty if this minigame does not rank players
+     */
+    open fun getFinalPlacements(): List<Set<UUID>> = emptyList()
+
+    /**
+     * Whether ended instances of this minigame may be pooled and recycled.
+     * Override to return true once [onRecycle] resets all per-game state.
+     */
+    open val isReusable: Boolean
+        get() = false
+
     /**
      * Internal cleanup method
      */
     private fun cleanup() {
+        pendingJoins.clear()
         playerCache.clear()
         endListeners.clear()
         _players.clear()
     }
 
     /**
-     * Add a player to the minigame.
+     * Add a player to the minigame. Runs on the [mailbox].
+     *
+     * Only admission runs right away: it checks capacity and state and reserves the slot.
+     * Teleporting, game mode changes, [onPlayerJoin] and the countdown check follow as a
+     * separate mailbox task, so other queued work is not held up behind them. A player who
+     * leaves in between keeps nothing but the reservation, which their removal releases.
      *
      * @param player Player to add
-     * @return true if player was successfully added
+     * @return true if the player was admitted
      */
-    open fun addPlayer(player: Player): Boolean {
+    open fun addPlayer(player: Player): Boolean = onMailbox { addPlayerNow(player) }
+
+    private fun addPlayerNow(player: Player): Boolean {
         checkNotDestroyed()
 
         if (!player.isOnline) {
             return false
         }
 
-        synchronized(_players) {
-            if (_players.contains(player.uniqueId)) {
-                return false
-            }
+        val spectating = admit(player) ?: return false
+        mailbox.execute { finishJoin(listOf(player), spectating) { onPlayerJoin(player) } }
+        return true
+    }
 
-            if (_players.size >= maxPlayers) {
-                player.sendMessage(MinigameConfig.getMsgGameFull())
-                return false
-            }
+    /**
+     * Add a group of players to the minigame together, e.g. a party or a matchmaking batch.
+     *
+     * The group is admitted atomically: either every player not yet in the game gets a slot,
+     * or none does. As with [addPlayer], join side effects follow in a separate mailbox task,
+     * then [onPlayersJoin] is called once for the whole group and the countdown check runs once.
+     *
+     * @param players Players to add
+     * @return the players that were admitted, empty if the group was rejected
+     */
+    open fun addPlayers(players: Collection<Player>): List<Player> = onMailbox { addPlayersNow(players) }
+
+    private fun addPlayersNow(players: Collection<Player>): List<Player> {
+        checkNotDestroyed()
 
-            if (state == MinigameState.RUNNING && !isAllowJoinDuringGame) {
-                player.sendMessage(MinigameConfig.getMsgGameInProgress())
-                return false
+        val candidates = players.filter { it.isOnline }.distinctBy { it.uniqueId }
+        if (candidates.isEmpty()) {
+            return emptyList()
+        }
+
+        val newcomers = candidates.filter { !_players.contains(it.uniqueId) }
+        val rejection = when {
+            newcomers.isEmpty() -> return emptyList()
+            _players.size + newcomers.size > maxPlayers -> MinigameConfig.getMsgGameFull()
+            state == MinigameState.RUNNING && !isAllowJoinDuringGame -> MinigameConfig.getMsgGameInProgress()
+            else -> null
+        }
+        if (rejection != null) {
+            candidates.forEach { it.sendMessage(rejection) }
+            return emptyList()
+        }
+
+        newcomers.forEach {
+            _players.add(it.uniqueId)
+            pendingJoins.add(it.uniqueId)
+        }
+        val spectating = state == MinigameState.RUNNING
+        mailbox.execute { finishJoin(newcomers, spectating) { onPlayersJoin(it) } }
+        return newcomers
+    }
+
+    /**
+     * Reserve a slot for a player.
+     *
+     * @return whether the player joins as a spectator, or null if they were not admitted
+     */
+    private fun admit(player: Player): Boolean? {
+        val rejection = when {
+            _players.contains(player.uniqueId) -> return null
+            _players.size >= maxPlayers -> MinigameConfig.getMsgGameFull()
+            state == MinigameState.RUNNING && !isAllowJoinDuringGame -> MinigameConfig.getMsgGameInProgress()
+            else -> {
+                _players.add(player.uniqueId)
+                pendingJoins.add(player.uniqueId)
+                return state == MinigameState.RUNNING
             }
+        }
+
+        player.sendMessage(rejection)
+        return null
+    }
+
+    /**
+     * Run the join side effects of admitted players, skipping those who were removed since.
+     * Players who went offline keep their slot until the quit handler removes them.
+     */
+    private fun finishJoin(admitted: List<Player>, spectating: Boolean, callback: (List<Player>) -> Unit) {
+        if (isDestroyed.get()) {
+            return
+        }
+        val joined = admitted.filter { pendingJoins.remove(it.uniqueId) && it.isOnline }
+        if (joined.isEmpty()) {
+            return
+        }
+
+        joined.forEach { completeJoin(it, spectating) }
+        try {
+            callback(joined)
+        } catch (e: Exception) {
+            manager.plugin.logger.warning("Error in join callback for minigame $id: ${e.message}")
+            e.printStackTrace()
+        }
+        notifyPlayerCountWaiters()
 
-            _players.add(player.uniqueId)
-            playerCache[player.uniqueId] = player
+        maybeAutoStart()
+    }
 
-            if (state == MinigameState.RUNNING && isAllowJoinDuringGame) {
-                // Force player into spectator mode if joining mid-game
+    /**
+     * Run the side effects of a join after the slot was reserved, before the join callback
+     */
+    private fun completeJoin(player: Player, spectating: Boolean) {
+        playerCache[player.uniqueId] = player
+
+        if (spectating) {
+            // Force player into spectator mode if joining mid-game
+            runForPlayer(player) {
                 try {
                     player.gameMode = GameMode.SPECTATOR
                     player.sendMessage(
@@ -286,27 +812,23 @@ abstract class Minigame(
                 } catch (e: Exception) {
                     manager.plugin.logger.warning("Failed to set ${player.name} to spectator: ${e.message}")
                 }
-            } else {
-                spawnPoint?.let {
-                    try {
-                        player.teleport(it)
-                    } catch (e: Exception) {
-                        manager.plugin.logger.warning("Failed to teleport ${player.name} to spawn point: ${e.message}")
-                    }
-                }
             }
-
-            try {
-                onPlayerJoin(player)
-            } catch (e: Exception) {
-                manager.plugin.logger.warning("Error in onPlayerJoin for ${player.name}: ${e.message}")
-                e.printStackTrace()
+        } else {
+            spawnPoint?.let {
+                teleportAsync(player, it).exceptionally { e ->
+                    manager.plugin.logger.warning("Failed to teleport ${player.name} to spawn point: ${e.message}")
+                    false
+                }
             }
+        }
+    }
 
-            if (state == MinigameState.WAITING && _players.size >= minPlayers && shouldAutoStart()) {
-                startCountdown()
-            }
-            return true
+    /**
+     * Start the countdown once enough players joined.
+     */
+    private fun maybeAutoStart() {
+        if (state == MinigameState.WAITING && _players.size >= minPlayers && shouldAutoStart()) {
+            startCountdown()
         }
     }
 
@@ -316,39 +838,80 @@ abstract class Minigame(
      * @param player Player to remove
      * @return true if the player was actually removed, false otherwise
      */
-    open fun removePlayer(player: Player): Boolean {
+    open fun removePlayer(player: Player): Boolean = onMailbox { removePlayerNow(player) }
+
+    private fun removePlayerNow(player: Player): Boolean {
         if (isDestroyed.get()) return false
-        synchronized(_players) {
-            if (!_players.contains(player.uniqueId)) {
-                return false
-            }
+        if (!_players.remove(player.uniqueId)) {
+            return false
+        }
+        pendingJoins.remove(player.uniqueId)
+
+        // Clean up player-specific resources
+        try {
+            onPlayerCleanup(player)
+        } catch (e: Exception) {
+            manager.plugin.logger.warning("Error during player cleanup for ${player.name}: ${e.message}")
+            e.printStackTrace()
+        }
+
+        // Call onPlayerLeave after removal
+        try {
+            onPlayerLeave(player)
+        } catch (e: Exception) {
+            manager.plugin.logger.warning("Error during player leave for ${player.name}: ${e.message}")
+            e.printStackTrace()
+        }
 
-            // Clean up player-specific resources before removal
+        manager.plugin.logger.fine("Player ${player.name} removed from minigame $id")
+
+        // Check game state after player removal
+        if (!isDestroyed.get()) {
+            checkGameStateAfterPlayerLeave()
+        }
+        return true
+    }
+
+    /**
+     * Remove a group of players from the minigame together.
+     * [onPlayersLeave] is called once for the group and the game state is checked once.
+     *
+     * @param players Players to remove
+     * @return the players that were actually removed
+     */
+    open fun removePlayers(players: Collection<Player>): List<Player> = onMailbox { removePlayersNow(players) }
+
+    private fun removePlayersNow(players: Collection<Player>): List<Player> {
+        if (isDestroyed.get()) return emptyList()
+        val removed = players.distinctBy { it.uniqueId }.filter { player ->
+            _players.remove(player.uniqueId).also { if (it) pendingJoins.remove(player.uniqueId) }
+        }
+        if (removed.isEmpty()) {
+            return removed
+        }
+
+        removed.forEach { player ->
             try {
                 onPlayerCleanup(player)
             } catch (e: Exception) {
                 manager.plugin.logger.warning("Error during player cleanup for ${player.name}: ${e.message}")
                 e.printStackTrace()
             }
+        }
 
-            _players.remove(player.uniqueId)
-
-            // Call onPlayerLeave after removal
-            try {
-                onPlayerLeave(player)
-            } catch (e: Exception) {
-                manager.plugin.logger.warning("Error during player leave for ${player.name}: ${e.message}")
-                e.printStackTrace()
-            }
+        try {
+            onPlayersLeave(removed)
+        } catch (e: Exception) {
+            manager.plugin.logger.warning("Error in onPlayersLeave for minigame $id: ${e.message}")
+            e.printStackTrace()
+        }
 
-            manager.plugin.logger.fine("Player ${player.name} removed from minigame $id")
+        manager.plugin.logger.fine("${removed.size} players removed from minigame $id")
 
-            // Check game state after player removal
-            if (!isDestroyed.get()) {
-                checkGameStateAfterPlayerLeave()
-            }
-            return true
+        if (!isDestroyed.get()) {
+            checkGameStateAfterPlayerLeave()
         }
+        return removed
     }
 
     /**
@@ -389,12 +952,24 @@ abstract class Minigame(
     }
 
     /**
-     * Start the countdown to begin the game.
+     * Start the countdown to begin the game. Runs on the [mailbox].
      */
     open fun startCountdown() {
-        checkNotDestroyed()
-        setState(MinigameState.COUNTDOWN)
-        onCountdownStart()
+        onMailbox {
+            checkNotDestroyed()
+            setState(MinigameState.COUNTDOWN)
+            onCountdownStart()
+        }
+    }
+
+    /**
+     * Run work on the [mailbox] after everything queued before it and wait for its result.
+     * On the arena's thread, which on a classic server is the main thread, it runs inline.
+     * Routed event handlers run through it too, so they stay synchronous with their event.
+     */
+    internal fun <T> onMailbox(task: () -> T): T {
+        val ownsArena = spawnPoint?.let(GameScheduler::isOwnedByCurrentThread) ?: GameScheduler.isGlobalThread()
+        return mailbox.await(Callable(task), ownsArena)
     }
 
     /**
@@ -407,6 +982,28 @@ abstract class Minigame(
         endListeners.add(listener)
     }
 
+    /**
+     * Add a listener called each time the minigame enters RUNNING, including starts
+     * deferred until the spawn chunks are loaded. Start listeners stay registered
+     * across rounds and recycling.
+     *
+     * @param listener Consumer that takes the started minigame
+     */
+    open fun addStartListener(listener: Consumer<Minigame>) {
+        checkNotDestroyed()
+        startListeners.add(listener)
+    }
+
+    /**
+     * Remove a start listener.
+     *
+     * @param listener Consumer to remove
+     * @return true if the listener was removed
+     */
+    open fun removeStartListener(listener: Consumer<Minigame>): Boolean {
+        return startListeners.remove(listener)
+    }
+
     /**
      * Remove an end listener.
      *
@@ -624,9 +1221,204 @@ abstract class Minigame(
     protected fun setState(newState: MinigameState) {
         val oldState = this.state
         this.state = newState
+        if (oldState != newState) {
+            (if (newState == MinigameState.ENDED) matchLog.get() else openMatchLog())?.stateChanged(oldState, newState)
+        }
         onStateChange(oldState, newState)
     }
 
+    /**
+     * Record a game-specific event in the match log, e.g. a captured flag or a completed round.
+     *
+     * @param name Name of the event
+     * @param playerId Player the event is about, or null
+     * @param data Payload in a format of the minigame's choosing
+     */
+    @JvmOverloads
+    protected fun logMatchEvent(name: String, playerId: UUID? = null, data: ByteArray = ByteArray(0)) {
+        openMatchLog()?.custom(name, playerId, data)
+    }
+
+    /**
+     * Get the log of the current match, opening it if the match has not ended.
+     */
+    private fun openMatchLog(): MatchLog? {
+        matchLog.get()?.let { return it }
+        if (state == MinigameState.ENDED || isDestroyed.get() || !MinigameConfig.isMatchLogEnabled()) {
+            return null
+        }
+        // Opening writes nothing, so losing the race costs only the unused handle
+        val opened = manager.matchLogs.open(id)
+        return if (matchLog.compareAndSet(null, opened)) opened else matchLog.get()
+    }
+
+    private fun closeMatchLog() {
+        matchLog.getAndSet(null)?.close()
+    }
+
+    /**
+     * Locations players are sent to when the match starts. Their chunks are loaded during the
+     * countdown and [start] waits for them. Override to add team or per-player spawns.
+     *
+     * @return the spawn locations, by default only the spawn point
+     */
+    protected open fun getSpawnLocations(): Collection<Location> = listOfNotNull(spawnPoint)
+
+    /**
+     * Start loading the chunks around the [getSpawnLocations] asynchronously and keep them
+     * loaded until the match ends. Called when the countdown starts; does nothing if they are
+     * already loading.
+     *
+     * @return future completed once the chunks are loaded or loading timed out
+     */
+    fun preloadSpawnChunks(): CompletableFuture<Void> = onMailbox {
+        spawnChunks.get()?.ready ?: manager.chunkPreloader
+            .hold(getSpawnLocations(), MinigameConfig.getPreloadChunkRadius())
+            .also { hold ->
+                hold.ready.orTimeout(MinigameConfig.getPreloadTimeoutSeconds().toLong(), TimeUnit.SECONDS)
+                spawnChunks.set(hold)
+            }
+            .ready
+    }
+
+    /**
+     * Check if the spawn chunks are loaded, otherwise call [start] again once they are.
+     */
+    private fun awaitSpawnChunks(): Boolean {
+        val ready = preloadSpawnChunks()
+        if (ready.isDone) {
+            return true
+        }
+        if (!awaitingSpawnChunks) {
+            awaitingSpawnChunks = true
+            ready.whenComplete { _, error ->
+                if (error != null) {
+                    manager.plugin.logger.warning("Spawn chunks of minigame $id did not load, starting anyway: ${error.message}")
+                }
+                mailbox.execute {
+                    awaitingSpawnChunks = false
+                    if (!isDestroyed.get() && state != MinigameState.ENDED) {
+                        start()
+                    }
+                }
+            }
+        }
+        return false
+    }
+
+    private fun releaseSpawnChunks() {
+        spawnChunks.getAndSet(null)?.release()
+    }
+
+    /**
+     * Teleport a player without loading the destination chunk on the main thread. The arena is
+     * not rolled back until teleports started this way, e.g. in [onEnd], have arrived.
+     *
+     * @return future completed with whether the teleport succeeded
+     */
+    protected fun teleportAsync(player: Player, location: Location): CompletableFuture<Boolean> {
+        val future = PaperLib.teleportAsync(player, location)
+        pendingTeleports.add(future)
+        future.whenComplete { _, _ -> pendingTeleports.remove(future) }
+        return future
+    }
+
+    private fun rollBackArena() {
+        manager.arenaBlocks.untrack(blockRollback)
+        if (arena != null && !shouldLoop) {
+            // The copy is thrown away with its changes
+            blockRollback.clear()
+            return
+        }
+        if (!isRollbackEnabled || blockRollback.size == 0) {
+            return
+        }
+        if (!manager.plugin.isEnabled) {
+            // Shutting down, no more ticks will run
+            pendingRollback = CompletableFuture.completedFuture(blockRollback.restoreNow())
+            return
+        }
+        val departures = CompletableFuture.allOf(*pendingTeleports.toTypedArray())
+            .completeOnTimeout(null, DEPARTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+        pendingRollback = departures
+            .handle { _, _ -> }
+            .thenCompose {
+                blockRollback.restore(
+                    manager.plugin.gameScheduler,
+                    MinigameConfig.getRollbackBlocksPerTick(),
+                    MinigameConfig.getRollbackMaxMillisPerTick() * 1_000_000L
+                )
+            }
+    }
+
+    /**
+     * Record blocks broken, placed or changed with buckets by this game's players.
+     */
+    private fun subscribeRollback() {
+        subscribe(BlockBreakEvent::class.java, EventPriority.MONITOR, true) { blockRollback.record(it.block) }
+        subscribe(BlockPlaceEvent::class.java, EventPriority.MONITOR, true) { event ->
+            if (event is BlockMultiPlaceEvent) {
+                event.replacedBlockStates.forEach { blockRollback.record(it) }
+            } else {
+                blockRollback.record(event.blockReplacedState)
+            }
+        }
+        subscribe(PlayerBucketEmptyEvent::class.java, EventPriority.MONITOR, true) { blockRollback.record(it.block) }
+        subscribe(PlayerBucketFillEvent::class.java, EventPriority.MONITOR, true) { blockRollback.record(it.block) }
+    }
+
+    private fun isReplayEnabled(): Boolean {
+        val typeId = manager.getMinigameType(id) ?: return false
+        return MinigameConfig.isReplayEnabled(typeId)
+    }
+
+    /**
+     * Start recording the replay of the match that just started, named after its match log.
+     */
+    private fun startReplay() {
+        stopReplay()
+        val name = (matchId ?: "$id-${System.currentTimeMillis()}").replace(Regex("[^A-Za-z0-9._-]"), "_")
+        try {
+            val recorder = ReplayRecorder(
+                File(File(manager.plugin.dataFolder, "replays"), "$name.replay"),
+                maxPlayers,
+                MinigameConfig.getReplayBufferKb() * 1024,
+                MinigameConfig.getReplayMaxFileMb() * 1024L * 1024L,
+                manager.plugin.logger
+            )
+            // Published first, so players joining meanwhile are tracked through onPlayerJoin
+            replay = recorder
+            _players.toList().forEach { uuid -> getPlayerById(uuid)?.let { recorder.track(it) } }
+            recorder.start(manager.plugin.gameScheduler, spawnPoint)
+        } catch (e: IOException) {
+            manager.plugin.logger.warning("Could not start replay of minigame $id: ${e.message}")
+        }
+    }
+
+    private fun stopReplay() {
+        replay?.let {
+            replay = null
+            it.stop()
+        }
+    }
+
+    /**
+     * Feed swings, item use and damage of this game's players into its replay.
+     */
+    private fun subscribeReplayActions() {
+        subscribe(PlayerAnimationEvent::class.java, EventPriority.MONITOR, true) {
+            replay?.markAction(it.player.uniqueId, ReplayAction.SWING)
+        }
+        subscribe(PlayerInteractEvent::class.java, EventPriority.MONITOR) { event ->
+            if (event.action == Action.RIGHT_CLICK_AIR || event.action == Action.RIGHT_CLICK_BLOCK) {
+                replay?.markAction(event.player.uniqueId, ReplayAction.USE)
+            }
+        }
+        subscribe(EntityDamageEvent::class.java, EventPriority.MONITOR, true) { event ->
+            (event.entity as? Player)?.let { replay?.markAction(it.uniqueId, ReplayAction.HURT) }
+        }
+    }
+
     /**
      * Get detailed status information about this minigame.
      * Useful for debugging and monitoring.
@@ -670,7 +1462,8 @@ abstract class Minigame(
      */
     protected open fun onPlayerJoin(player: Player) {
         playerCache[player.uniqueId] = player
-        manager.plugin.logger.info("Player ${player.name} joined minigame $id")
+        openMatchLog()?.playerJoined(player.uniqueId)
+        replay?.track(player)
     }
 
     /**
@@ -681,7 +1474,43 @@ abstract class Minigame(
      */
     protected open fun onPlayerLeave(player: Player) {
         onPlayerCleanup(player)
-        manager.plugin.logger.info("Player ${player.name} left minigame $id")
+        openMatchLog()?.playerLeft(player.uniqueId)
+        replay?.untrack(player.uniqueId)
+    }
+
+    /**
+     * Called once when a group of players joins through [addPlayers].
+     * By default this calls [onPlayerJoin] for each player; override it to react to the
+     * group as a whole, e.g. to update a scoreboard once instead of per player.
+     *
+     * @param players Players who joined
+     */
+    protected open fun onPlayersJoin(players: List<Player>) {
+        players.forEach { player ->
+            try {
+                onPlayerJoin(player)
+            } catch (e: Exception) {
+                manager.plugin.logger.warning("Error in onPlayerJoin for ${player.name}: ${e.message}")
+                e.printStackTrace()
+            }
+        }
+    }
+
+    /**
+     * Called once when a group of players leaves through [removePlayers].
+     * By default this calls [onPlayerLeave] for each player.
+     *
+     * @param players Players who left
+     */
+    protected open fun onPlayersLeave(players: List<Player>) {
+        players.forEach { player ->
+            try {
+                onPlayerLeave(player)
+            } catch (e: Exception) {
+                manager.plugin.logger.warning("Error during player leave for ${player.name}: ${e.message}")
+                e.printStackTrace()
+            }
+        }
     }
 
     /**
@@ -700,24 +1529,73 @@ abstract class Minigame(
      */
     protected open fun onCountdownStart() {
         manager.plugin.logger.info("Countdown started for minigame $id")
+        preloadSpawnChunks()
     }
 
+    /**
+     * Called when a pooled minigame is recycled, before it is initialized again.
+     * Override this method to reset scores, timers and other per-game state.
+     */
+    protected open fun onRecycle() {
+        manager.plugin.logger.fine("Minigame recycled as $id")
+    }
 
-    // Event handlers - import missing dependencies
 
-    @EventHandler
-    fun onPlayerQuitServer(event: org.bukkit.event.player.PlayerQuitEvent) {
-        val player = event.player
-        if (_players.contains(player.uniqueId)) {
-            manager.plugin.logger.info(
-                "Player ${player.name} quit server while in minigame $id"
-            )
+    /**
+     * Subscribe to an event type through the manager's event router.
+     * The handler is only called for events involving a player in this minigame.
+     *
+     * @param eventClass The event type to listen for
+     * @param priority Bukkit priority the handler runs at
+     * @param ignoreCancelled Skip the handler if the event was already cancelled
+     * @param handler Callback invoked with the event
+     */
+    @JvmOverloads
+    protected fun <T : Event> subscribe(
+        eventClass: Class<T>,
+        priority: EventPriority = EventPriority.NORMAL,
+        ignoreCancelled: Boolean = false,
+        handler: Consumer<T>
+    ) {
+        checkNotDestroyed()
+        manager.eventRouter.subscribe(this, eventClass, priority, ignoreCancelled, handler)
+    }
 
-            // Schedule removal on next tick to avoid concurrent modification
-            org.bukkit.Bukkit.getScheduler().runTask(manager.plugin, Runnable {
-                removePlayer(player)
-            })
+    /**
+     * Notify global listeners that a player was eliminated from this minigame.
+     * Listeners receive the instance registered with the manager, which may wrap this one.
+     *
+     * @param player The eliminated player
+     * @param reason The reason for elimination
+     */
+    protected fun notifyPlayerEliminated(player: Player, reason: String) {
+        openMatchLog()?.playerEliminated(player.uniqueId, reason)
+        val published = manager.getGame(id) ?: this
+        manager.eventBus.firePlayerEliminated(player, published, reason)
+    }
+
+    /**
+     * Called by the manager when a player in this minigame quits the server.
+     *
+     * @return true if the player should be removed from the minigame
+     */
+    internal fun handleServerQuit(player: Player): Boolean {
+        manager.plugin.logger.info("Player ${player.name} quit server while in minigame $id")
+        return shouldAutoRemoveOnQuit(player)
+    }
+
+    /**
+     * Check whether a subclass still declares Bukkit @EventHandler methods directly.
+     */
+    private fun hasLegacyEventHandlers(): Boolean {
+        var type: Class<*>? = this::class.java
+        while (type != null && type != Minigame::class.java) {
+            if (type.declaredMethods.any { it.isAnnotationPresent(EventHandler::class.java) }) {
+                return true
+            }
+            type = type.superclass
         }
+        return false
     }
 
     /**
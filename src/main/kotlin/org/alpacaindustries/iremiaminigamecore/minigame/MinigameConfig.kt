@@ -1,9 +1,13 @@
 package org.alpacaindustries.iremiaminigamecore.minigame
 
 import net.kyori.adventure.text.Component
+import net.kyori.adventure.text.ComponentLike
+import net.kyori.adventure.text.TextReplacementConfig
 import net.kyori.adventure.text.minimessage.MiniMessage
 import org.bukkit.configuration.file.FileConfiguration
 import org.bukkit.plugin.Plugin
+import java.util.concurrent.ConcurrentHashMap
+import java.util.regex.Pattern
 
 object MinigameConfig {
 
@@ -12,6 +16,19 @@ object MinigameConfig {
     private val miniMessage = MiniMessage.miniMessage()
     private val PREFIX = "<gray>[<gold><b>Minigame</b></gold>] </gray>"
 
+    // Parsed messages for the current config, swapped as a whole on reload
+    @Volatile
+    private var messageCache: MessageCache? = null
+    private val placeholderPatterns = ConcurrentHashMap<String, Pattern>()
+
+    private val DEFAULT_MESSAGES = mapOf(
+        "minigames.messages.game-full" to "<red>This game is full!",
+        "minigames.messages.game-in-progress" to "<yellow>This game is already in progress!",
+        "minigames.messages.not-enough-players" to "<yellow>Not enough players to start!",
+        "minigames.messages.players-remaining" to "<red>Not enough players remaining! Ending game.",
+        "minigames.messages.countdown-cancelled" to "<yellow>Countdown cancelled - not enough players!"
+    )
+
     /**
      * Initialize the config with the plugin instance.
      *
@@ -25,6 +42,7 @@ object MinigameConfig {
         pluginInstance.saveDefaultConfig()
         pluginInstance.reloadConfig()
         config = pluginInstance.config
+        messageCache = MessageCache(pluginInstance.config)
     }
 
     /**
@@ -99,10 +117,325 @@ object MinigameConfig {
         return config!!.getInt("minigames.max-cached-players", 100)
     }
 
+    /**
+     * Get the number of threads delivering events to asynchronous listeners.
+     *
+     * @return the number of async listener threads
+     * @throws IllegalStateException if config is not initialized
+     */
+    @JvmStatic
+    fun getAsyncListenerWorkers(): Int {
+        checkInitialized()
+        return config!!.getInt("minigames.async-listeners.workers", 2).coerceAtLeast(1)
+    }
+
+    /**
+     * Get the maximum number of queued events per async listener thread.
+     *
+     * @return the async listener queue capacity
+     * @throws IllegalStateException if config is not initialized
+     */
+    @JvmStatic
+    fun getAsyncListenerQueueCapacity(): Int {
+        checkInitialized()
+        return config!!.getInt("minigames.async-listeners.queue-capacity", 1024).coerceAtLeast(1)
+    }
+
+    /**
+     * Get the number of idle instances kept ready per minigame type.
+     *
+     * @return the warm pool size
+     * @throws IllegalStateException if config is not initialized
+     */
+    @JvmStatic
+    fun getPoolWarmSize(): Int {
+        checkInitialized()
+        return config!!.getInt("minigames.pool.warm-size", 1).coerceAtLeast(0)
+    }
+
+    /**
+     * Get the maximum number of idle instances pooled per minigame type.
+     *
+     * @return the maximum idle pool size
+     * @throws IllegalStateException if config is not initialized
+     */
+    @JvmStatic
+    fun getPoolMaxIdle(): Int {
+        checkInitialized()
+        return config!!.getInt("minigames.pool.max-idle", 4).coerceAtLeast(0)
+    }
+
+    /**
+     * Get how often matchmaking queues are grouped into matches.
+     *
+     * @return the matchmaking interval in ticks
+     * @throws IllegalStateException if config is not initialized
+     */
+    @JvmStatic
+    fun getMatchmakingIntervalTicks(): Int {
+        checkInitialized()
+        return config!!.getInt("minigames.matchmaking.interval-ticks", 20).coerceAtLeast(1)
+    }
+
+    /**
+     * Get how long queued players wait for a full match before a smaller one is formed.
+     *
+     * @return the maximum queue wait in seconds
+     * @throws IllegalStateException if config is not initialized
+     */
+    @JvmStatic
+    fun getMatchmakingMaxWaitSeconds(): Int {
+        checkInitialized()
+        return config!!.getInt("minigames.matchmaking.max-wait-seconds", 30).coerceAtLeast(0)
+    }
+
+    /**
+     * Check if player ratings are updated when games end.
+     *
+     * @return true if ratings are enabled
+     * @throws IllegalStateException if config is not initialized
+     */
+    @JvmStatic
+    fun isRatingsEnabled(): Boolean {
+        checkInitialized()
+        return config!!.getBoolean("minigames.ratings.enabled", true)
+    }
+
+    /**
+     * Get how often changed ratings are saved to disk.
+     *
+     * @return the rating save interval in seconds
+     * @throws IllegalStateException if config is not initialized
+     */
+    @JvmStatic
+    fun getRatingsFlushIntervalSeconds(): Int {
+        checkInitialized()
+        return config!!.getInt("minigames.ratings.flush-interval-seconds", 60).coerceAtLeast(1)
+    }
+
+    /**
+     * Check if player statistics are recorded.
+     *
+     * @return true if statistics are enabled
+     * @throws IllegalStateException if config is not initialized
+     */
+    @JvmStatic
+    fun isStatsEnabled(): Boolean {
+        checkInitialized()
+        return config!!.getBoolean("minigames.stats.enabled", true)
+    }
+
+    /**
+     * Get how often recorded statistics are written to disk.
+     *
+     * @return the statistics write interval in seconds
+     * @throws IllegalStateException if config is not initialized
+     */
+    @JvmStatic
+    fun getStatsFlushIntervalSeconds(): Int {
+        checkInitialized()
+        return config!!.getInt("minigames.stats.flush-interval-seconds", 5).coerceAtLeast(1)
+    }
+
+    /**
+     * Get the journal size after which statistics are rewritten into a snapshot.
+     *
+     * @return the compaction threshold in kilobytes
+     * @throws IllegalStateException if config is not initialized
+     */
+    @JvmStatic
+    fun getStatsCompactThresholdKb(): Int {
+        checkInitialized()
+        return config!!.getInt("minigames.stats.compact-threshold-kb", 1024).coerceAtLeast(16)
+    }
+
+    /**
+     * Check if match events are written to match logs.
+     *
+     * @return true if match logs are enabled
+     * @throws IllegalStateException if config is not initialized
+     */
+    @JvmStatic
+    fun isMatchLogEnabled(): Boolean {
+        checkInitialized()
+        return config!!.getBoolean("minigames.match-log.enabled", true)
+    }
+
+    /**
+     * Get the size at which a match log starts a new segment file.
+     *
+     * @return the segment size in kilobytes
+     * @throws IllegalStateException if config is not initialized
+     */
+    @JvmStatic
+    fun getMatchLogSegmentSizeKb(): Int {
+        checkInitialized()
+        return config!!.getInt("minigames.match-log.segment-size-kb", 256).coerceAtLeast(4)
+    }
+
+    /**
+     * Get how long match logs are kept.
+     *
+     * @return the retention in days, 0 to keep logs forever
+     * @throws IllegalStateException if config is not initialized
+     */
+    @JvmStatic
+    fun getMatchLogRetentionDays(): Int {
+        checkInitialized()
+        return config!!.getInt("minigames.match-log.retention-days", 14).coerceAtLeast(0)
+    }
+
+    /**
+     * Check if matches of a minigame type are recorded as replays. Off unless the type is listed.
+     *
+     * @param typeId the minigame type
+     * @return true if replays are recorded for the type
+     * @throws IllegalStateException if config is not initialized
+     */
+    @JvmStatic
+    fun isReplayEnabled(typeId: String): Boolean {
+        checkInitialized()
+        return config!!.getStringList("minigames.replay.types").any { it.trim().equals(typeId, ignoreCase = true) }
+    }
+
+    /**
+     * Get the size of the in-memory buffer each replay collects samples in before writing them to its file.
+     *
+     * @return the replay buffer size in kilobytes
+     * @throws IllegalStateException if config is not initialized
+     */
+    @JvmStatic
+    fun getReplayBufferKb(): Int {
+        checkInitialized()
+        return config!!.getInt("minigames.replay.buffer-kb", 64).coerceAtLeast(4)
+    }
+
+    /**
+     * Get the maximum size of one replay file; recording stops when it is reached.
+     *
+     * @return the maximum replay file size in megabytes
+     * @throws IllegalStateException if config is not initialized
+     */
+    @JvmStatic
+    fun getReplayMaxFileMb(): Int {
+        checkInitialized()
+        return config!!.getInt("minigames.replay.max-file-mb", 32).coerceAtLeast(1)
+    }
+
+    /**
+     * Get the maximum number of blocks restored per tick when an arena is rolled back.
+     *
+     * @return the rollback block budget per tick
+     * @throws IllegalStateException if config is not initialized
+     */
+    @JvmStatic
+    fun getRollbackBlocksPerTick(): Int {
+        checkInitialized()
+        return config!!.getInt("minigames.rollback.blocks-per-tick", 2000).coerceAtLeast(1)
+    }
+
+    /**
+     * Get the maximum time spent restoring arena blocks per tick.
+     *
+     * @return the rollback time budget per tick in milliseconds
+     * @throws IllegalStateException if config is not initialized
+     */
+    @JvmStatic
+    fun getRollbackMaxMillisPerTick(): Int {
+        checkInitialized()
+        return config!!.getInt("minigames.rollback.max-millis-per-tick", 5).coerceAtLeast(1)
+    }
+
+    /**
+     * Get the number of loaded copies kept ready per arena template.
+     *
+     * @return the default number of warm arena copies per minigame type
+     * @throws IllegalStateException if config is not initialized
+     */
+    @JvmStatic
+    fun getArenaWarmCopies(): Int {
+        checkInitialized()
+        return config!!.getInt("minigames.arenas.warm-copies", 2).coerceAtLeast(1)
+    }
+
+    /**
+     * Get the arena template worlds configured per minigame type.
+     *
+     * @return template world folder names keyed by minigame type
+     * @throws IllegalStateException if config is not initialized
+     */
+    @JvmStatic
+    fun getArenaTemplates(): Map<String, String> {
+        checkInitialized()
+        val section = config!!.getConfigurationSection("minigames.arenas.templates") ?: return emptyMap()
+        return section.getKeys(false)
+            .associateWith { section.getString(it).orEmpty().trim() }
+            .filterValues { it.isNotEmpty() }
+    }
+
+    /**
+     * Get the radius of chunks loaded around each spawn location during the countdown.
+     *
+     * @return the preload radius in chunks
+     * @throws IllegalStateException if config is not initialized
+     */
+    @JvmStatic
+    fun getPreloadChunkRadius(): Int {
+        checkInitialized()
+        return config!!.getInt("minigames.preload.chunk-radius", 2).coerceIn(0, 8)
+    }
+
+    /**
+     * Get how long a game waits for its spawn chunks before starting without them.
+     *
+     * @return the preload timeout in seconds
+     * @throws IllegalStateException if config is not initialized
+     */
+    @JvmStatic
+    fun getPreloadTimeoutSeconds(): Int {
+        checkInitialized()
+        return config!!.getInt("minigames.preload.timeout-seconds", 10).coerceAtLeast(1)
+    }
+
     private fun getMessage(path: String, fallback: String): Component {
         checkInitialized()
-        val raw = config!!.getString(path) ?: fallback
-        return miniMessage.deserialize(PREFIX + raw)
+        return messageCache!!.get(path, fallback)
+    }
+
+    /**
+     * Get a prefixed message from the config with placeholders filled in.
+     * The template is parsed once and cached; placeholders written as {name} are
+     * substituted into the parsed component without parsing the template again.
+     *
+     * @param path the config path of the message
+     * @param fallback the MiniMessage template used if the path is not set
+     * @param placeholders placeholder names mapped to their values
+     * @return the resolved message
+     * @throws IllegalStateException if config is not initialized
+     */
+    @JvmStatic
+    fun getMessage(path: String, fallback: String, placeholders: Map<String, Any>): Component {
+        return applyPlaceholders(getMessage(path, fallback), placeholders)
+    }
+
+    /**
+     * Substitute {name} placeholders in an already parsed component.
+     *
+     * @param message the parsed message
+     * @param placeholders placeholder names mapped to their values
+     * @return the message with placeholders replaced
+     */
+    @JvmStatic
+    fun applyPlaceholders(message: Component, placeholders: Map<String, Any>): Component {
+        var result = message
+        placeholders.forEach { (name, value) ->
+            val replacement = value as? ComponentLike ?: Component.text(value.toString())
+            val pattern = placeholderPatterns.computeIfAbsent(name) { Pattern.compile(Pattern.quote("{$it}")) }
+            result = result.replaceText(
+                TextReplacementConfig.builder().match(pattern).replacement(replacement).build()
+            )
+        }
+        return result
     }
 
     /**
@@ -113,7 +446,7 @@ object MinigameConfig {
      */
     @JvmStatic
     fun getMsgGameFull(): Component =
-        getMessage("minigames.messages.game-full", "<red>This game is full!")
+        getMessage("minigames.messages.game-full", DEFAULT_MESSAGES.getValue("minigames.messages.game-full"))
 
     /**
      * Get the message for a game in progress.
@@ -124,7 +457,7 @@ object MinigameConfig {
     @JvmStatic
     fun getMsgGameInProgress(): Component = getMessage(
         "minigames.messages.game-in-progress",
-        "<yellow>This game is already in progress!"
+        DEFAULT_MESSAGES.getValue("minigames.messages.game-in-progress")
     )
 
     /**
@@ -135,7 +468,7 @@ object MinigameConfig {
      */
     @JvmStatic
     fun getMsgNotEnoughPlayers(): Component =
-        getMessage("minigames.messages.not-enough-players", "<yellow>Not enough players to start!")
+        getMessage("minigames.messages.not-enough-players", DEFAULT_MESSAGES.getValue("minigames.messages.not-enough-players"))
 
     /**
      * Get the message for not enough players remaining.
@@ -146,7 +479,7 @@ object MinigameConfig {
     @JvmStatic
     fun getMsgPlayersRemaining(): Component = getMessage(
         "minigames.messages.players-remaining",
-        "<red>Not enough players remaining! Ending game."
+        DEFAULT_MESSAGES.getValue("minigames.messages.players-remaining")
     )
 
     /**
@@ -158,7 +491,7 @@ object MinigameConfig {
     @JvmStatic
     fun getMsgCountdownCancelled(): Component = getMessage(
         "minigames.messages.countdown-cancelled",
-        "<yellow>Countdown cancelled - not enough players!"
+        DEFAULT_MESSAGES.getValue("minigames.messages.countdown-cancelled")
     )
 
     /**
@@ -169,6 +502,7 @@ object MinigameConfig {
         plugin?.let {
             it.reloadConfig()
             config = it.config
+            messageCache = MessageCache(it.config)
         }
     }
 
@@ -180,4 +514,20 @@ object MinigameConfig {
             throw IllegalStateException("MinigameConfig is not initialized. Call MinigameConfig.initialize(plugin) first.")
         }
     }
+
+    /**
+     * Parsed messages for one loaded configuration.
+     * Known messages are parsed up front; other paths are parsed on first use.
+     */
+    private class MessageCache(private val source: FileConfiguration) {
+        private val components = ConcurrentHashMap<String, Component>()
+
+        init {
+            DEFAULT_MESSAGES.forEach { (path, fallback) -> get(path, fallback) }
+        }
+
+        fun get(path: String, fallback: String): Component = components.computeIfAbsent(path) {
+            miniMessage.deserialize(PREFIX + (source.getString(path) ?: fallback))
+        }
+    }
 }
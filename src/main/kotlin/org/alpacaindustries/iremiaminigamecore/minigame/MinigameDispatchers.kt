@@ -0,0 +1,55 @@
+package org.alpacaindustries.iremiaminigamecore.minigame
+
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.suspendCancellableCoroutine
+import kotlinx.coroutines.yield
+import org.alpacaindustries.iremiaminigamecore.util.GameScheduler
+import org.alpacaindustries.iremiaminigamecore.util.MainThreadQueue
+import org.alpacaindustries.iremiaminigamecore.util.TickScheduler
+import kotlin.coroutines.CoroutineContext
+import kotlin.coroutines.resume
+
+/**
+ * Runs coroutines on the main thread, or the global region on Folia, through the
+ * once-per-tick main thread queue. Resumes inline when already on that thread.
+ */
+internal class GlobalRegionDispatcher(private val queue: MainThreadQueue) : CoroutineDispatcher() {
+
+    override fun isDispatchNeeded(context: CoroutineContext): Boolean = !GameScheduler.isGlobalThread()
+
+    override fun dispatch(context: CoroutineContext, block: Runnable) {
+        queue.execute(block)
+    }
+
+    override fun toString(): String = "MinigameMain"
+}
+
+/**
+ * Runs coroutines through a minigame's mailbox, in order with its other work.
+ * Resumes inline when already inside a mailbox task.
+ */
+internal class MailboxDispatcher(private val mailbox: ArenaMailbox) : CoroutineDispatcher() {
+
+    override fun isDispatchNeeded(context: CoroutineContext): Boolean = !mailbox.isCurrentThread
+
+    override fun dispatch(context: CoroutineContext, block: Runnable) {
+        mailbox.execute(block)
+    }
+
+    override fun toString(): String = "MinigameArena"
+}
+
+/**
+ * Suspend for a number of server ticks on the shared timing wheel.
+ * Cancelling the coroutine cancels the timer; no Bukkit task is created.
+ */
+suspend fun TickScheduler.delayTicks(ticks: Long) {
+    if (ticks <= 0) {
+        yield()
+        return
+    }
+    suspendCancellableCoroutine { continuation ->
+        val handle = schedule({ continuation.resume(Unit) }, ticks)
+        continuation.invokeOnCancellation { handle.cancel() }
+    }
+}
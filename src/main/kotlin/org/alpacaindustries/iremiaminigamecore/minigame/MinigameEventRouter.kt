@@ -0,0 +1,160 @@
+package org.alpacaindustries.iremiaminigamecore.minigame
+
+import org.bukkit.entity.Player
+import org.bukkit.event.Cancellable
+import org.bukkit.event.Event
+import org.bukkit.event.EventPriority
+import org.bukkit.event.HandlerList
+import org.bukkit.event.Listener
+import org.bukkit.event.block.BlockBreakEvent
+import org.bukkit.event.block.BlockPlaceEvent
+import org.bukkit.event.entity.EntityEvent
+import org.bukkit.event.inventory.InventoryCloseEvent
+import org.bukkit.event.inventory.InventoryInteractEvent
+import org.bukkit.event.inventory.InventoryOpenEvent
+import org.bukkit.event.player.PlayerEvent
+import org.bukkit.plugin.EventExecutor
+import org.bukkit.plugin.Plugin
+import java.util.*
+import java.util.concurrent.ConcurrentHashMap
+import java.util.function.Consumer
+
+/**
+ * Routes Bukkit events to the single minigame that owns the player involved.
+ *
+ * Only one Bukkit handler is registered per event type and priority, no matter how many
+ * games subscribe to it. Each dispatch resolves the player's game through the manager's
+ * player-to-game map, so the cost of an event does not grow with the number of active games.
+ *
+ * Handlers run on the game's [Minigame.mailbox], so they never interleave with its other
+ * state changes. They still run before the event returns, so they can cancel it: on the
+ * arena's thread the mailbox runs them inline, other threads wait for it.
+ */
+class MinigameEventRouter internal constructor(
+    private val plugin: Plugin,
+    private val gameIdOf: (UUID) -> String?
+) : Listener {
+
+    private val routes = ConcurrentHashMap<RouteKey, Route>()
+
+    /**
+     * Subscribe a minigame to an event type.
+     * The handler is only invoked for events whose player currently belongs to the game.
+     *
+     * @param game The subscribing minigame
+     * @param eventClass The event type to listen for
+     * @param priority Bukkit priority the handler runs at
+     * @param ignoreCancelled Skip the handler if the event was already cancelled
+     * @param handler Callback invoked with the event
+     * @throws IllegalArgumentException if the event type has no player that can be routed on
+     */
+    fun <T : Event> subscribe(
+        game: Minigame,
+        eventClass: Class<T>,
+        priority: EventPriority,
+        ignoreCancelled: Boolean,
+        handler: Consumer<in T>
+    ) {
+        require(isRoutable(eventClass)) {
+            "Event type ${eventClass.simpleName} does not carry a player and cannot be routed to a minigame"
+        }
+
+        @Suppress("UNCHECKED_CAST")
+        val subscription = Subscription(ignoreCancelled, handler as Consumer<Event>)
+        val route = routes.computeIfAbsent(RouteKey(eventClass, priority)) { key -> createRoute(key) }
+        route.subscribers.merge(game.id, GameSubscriptions(game, arrayOf(subscription))) { existing, added ->
+            GameSubscriptions(existing.game, existing.subscriptions + added.subscriptions)
+        }
+    }
+
+    /**
+     * Remove every subscription registered under the given minigame's ID.
+     *
+     * @param game The minigame to unsubscribe
+     */
+    fun unsubscribeAll(game: Minigame) {
+        routes.values.forEach { it.subscribers.remove(game.id) }
+    }
+
+    /**
+     * Get the number of Bukkit handlers currently registered by the router.
+     */
+    fun getRouteCount(): Int = routes.size
+
+    /**
+     * Unregister all Bukkit handlers and drop every subscription.
+     */
+    fun shutdown() {
+        HandlerList.unregisterAll(this)
+        routes.clear()
+    }
+
+    private fun createRoute(key: RouteKey): Route {
+        val route = Route()
+        val executor = EventExecutor { _, event -> dispatch(key.eventClass, route, event) }
+        plugin.server.pluginManager.registerEvent(key.eventClass, this, key.priority, executor, plugin, false)
+        return route
+    }
+
+    private fun dispatch(eventClass: Class<out Event>, route: Route, event: Event) {
+        if (!eventClass.isInstance(event)) return
+        if (route.subscribers.isEmpty()) return
+
+        val player = resolvePlayer(event) ?: return
+        val gameId = gameIdOf(player.uniqueId) ?: return
+        val subscribed = route.subscribers[gameId] ?: return
+
+        try {
+            subscribed.game.onMailbox { handle(subscribed.subscriptions, event, gameId) }
+        } catch (e: Exception) {
+            plugin.logger.warning("Could not handle ${event.eventName} for minigame $gameId: ${e.message}")
+        }
+    }
+
+    private fun handle(subscriptions: Array<Subscription>, event: Event, gameId: String) {
+        for (subscription in subscriptions) {
+            if (subscription.ignoreCancelled && event is Cancellable && event.isCancelled) continue
+            try {
+                subscription.handler.accept(event)
+            } catch (e: Exception) {
+                plugin.logger.warning("Error handling ${event.eventName} for minigame $gameId: ${e.message}")
+                e.printStackTrace()
+            }
+        }
+    }
+
+    private fun resolvePlayer(event: Event): Player? = when (event) {
+        is PlayerEvent -> event.player
+        is EntityEvent -> event.entity as? Player
+        is BlockBreakEvent -> event.player
+        is BlockPlaceEvent -> event.player
+        is InventoryInteractEvent -> event.whoClicked as? Player
+        is InventoryOpenEvent -> event.player as? Player
+        is InventoryCloseEvent -> event.player as? Player
+        else -> null
+    }
+
+    private fun isRoutable(eventClass: Class<out Event>): Boolean = ROUTABLE_TYPES.any { it.isAssignableFrom(eventClass) }
+
+    private data class RouteKey(val eventClass: Class<out Event>, val priority: EventPriority)
+
+    private class Route {
+        val subscribers = ConcurrentHashMap<String, GameSubscriptions>()
+    }
+
+    private class GameSubscriptions(val game: Minigame, val subscriptions: Array<Subscription>)
+
+    private class Subscription(val ignoreCancelled: Boolean, val handler: Consumer<Event>)
+
+    private companion object {
+        val ROUTABLE_TYPES = listOf(
+            PlayerEvent::class.java,
+            EntityEvent::class.java,
+            BlockBreakEvent::class.java,
+            BlockPlaceEvent::class.java,
+            InventoryInteractEvent::class.java,
+            InventoryOpenEvent::class.java,
+            InventoryCloseEvent::class.java
+        )
+    }
+}
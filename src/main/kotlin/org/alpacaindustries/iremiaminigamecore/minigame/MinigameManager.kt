@@ -1,9 +1,23 @@
 package org.alpacaindustries.iremiaminigamecore.minigame
 
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.asCoroutineDispatcher
 import net.kyori.adventure.text.minimessage.MiniMessage
 import org.alpacaindustries.iremiaminigamecore.IremiaMinigameCorePlugin
-import org.bukkit.Bukkit
+import org.alpacaindustries.iremiaminigamecore.api.MinigameEventBus
+import org.alpacaindustries.iremiaminigamecore.arena.ArenaBlockTracker
+import org.alpacaindustries.iremiaminigamecore.arena.ArenaManager
+import org.alpacaindustries.iremiaminigamecore.arena.ChunkPreloader
+import org.alpacaindustries.iremiaminigamecore.matchlog.MatchLogService
+import org.alpacaindustries.iremiaminigamecore.matchmaking.MatchmakingService
+import org.alpacaindustries.iremiaminigamecore.matchmaking.RatingService
+import org.alpacaindustries.iremiaminigamecore.stats.StatType
+import org.alpacaindustries.iremiaminigamecore.stats.StatsService
+import org.alpacaindustries.iremiaminigamecore.util.AsyncUtils
 import org.bukkit.entity.Player
+import org.bukkit.event.EventPriority
+import org.bukkit.event.player.PlayerQuitEvent
+import java.io.File
 import java.util.*
 import java.util.concurrent.ConcurrentHashMap
 
@@ -16,9 +30,97 @@ class MinigameManager(val plugin: IremiaMinigameCorePlugin) {
     private val gameFactories = ConcurrentHashMap<String, MinigameFactory>()
     private val activeGames = ConcurrentHashMap<String, Minigame>()
     private val playerGameMap = ConcurrentHashMap<UUID, String>()
+    private val gameTypes = ConcurrentHashMap<String, String>()
+
+    private val alreadyInGameSuffix = MiniMessage.miniMessage().deserialize(" <red>You are already in a game! Leave it first.")
+    private val gameNotFoundSuffix = MiniMessage.miniMessage().deserialize(" <red>That game doesn't exist!")
+
+    /**
+     * Shared event router that dispatches Bukkit events to the game owning the player
+     */
+    val eventRouter = MinigameEventRouter(plugin) { playerGameMap[it] }
+
+    /**
+     * Global listener bus used to notify external plugins of minigame events
+     */
+    val eventBus = MinigameEventBus(
+        plugin.logger,
+        MinigameConfig.getAsyncListenerWorkers(),
+        MinigameConfig.getAsyncListenerQueueCapacity()
+    )
+
+    /**
+     * Idle instances per minigame type, reused by [createMinigame]
+     */
+    val pool = MinigamePool(this, MinigameConfig.getPoolWarmSize(), MinigameConfig.getPoolMaxIdle())
+
+    /**
+     * Skill ratings per minigame type, updated when games end
+     */
+    val ratings = RatingService(plugin.logger, File(plugin.dataFolder, "ratings.yml"))
+
+    /**
+     * Persistent player statistics per minigame type
+     */
+    val stats = StatsService(
+        plugin.logger,
+        File(plugin.dataFolder, "stats"),
+        MinigameConfig.getStatsCompactThresholdKb() * 1024L
+    )
+
+    /**
+     * Append-only event logs of every match
+     */
+    val matchLogs = MatchLogService(
+        plugin.logger,
+        File(plugin.dataFolder, "matches"),
+        MinigameConfig.getMatchLogSegmentSizeKb() * 1024L
+    )
+
+    /**
+     * Per-type queues that assign waiting players to games in batches
+     */
+    val matchmaking = MatchmakingService(this)
+
+    /**
+     * Records explosions, fire, fluids and pistons inside arenas with a rollback region
+     */
+    val arenaBlocks = ArenaBlockTracker(plugin)
+
+    /**
+     * Warm copies of arena template worlds, one per minigame instance
+     */
+    val arenas = ArenaManager(plugin, MinigameConfig.getArenaWarmCopies())
+
+    /**
+     * Loads spawn chunks asynchronously during countdowns and keeps them loaded while games need them
+     */
+    val chunkPreloader = ChunkPreloader(plugin, plugin.gameScheduler)
+
+    /**
+     * Coroutine dispatcher for the main thread, or the global region on Folia
+     */
+    val mainDispatcher: CoroutineDispatcher = GlobalRegionDispatcher(plugin.mainThreadQueue)
+
+    /**
+     * Coroutine dispatcher for blocking work, running on virtual threads
+     */
+    val asyncDispatcher: CoroutineDispatcher = AsyncUtils.getIoExecutor().asCoroutineDispatcher()
 
     init {
         startHealthCheckScheduler()
+        registerQuitHandler()
+        ratings.load()
+        startRatingFlushScheduler()
+        if (MinigameConfig.isStatsEnabled()) {
+            stats.load()
+            stats.start(MinigameConfig.getStatsFlushIntervalSeconds() * 1000L)
+        }
+        if (MinigameConfig.isMatchLogEnabled()) {
+            matchLogs.start(MinigameConfig.getMatchLogRetentionDays())
+        }
+        matchmaking.start()
+        arenas.start(MinigameConfig.getArenaTemplates())
     }
 
     /**
@@ -32,6 +134,8 @@ class MinigameManager(val plugin: IremiaMinigameCorePlugin) {
             return
         }
         gameFactories[key] = factory
+        pool.clear(key)
+        pool.scheduleRefill(key, factory)
         plugin.logger.info("Registered minigame type: $id")
     }
 
@@ -64,13 +168,16 @@ class MinigameManager(val plugin: IremiaMinigameCorePlugin) {
         }
 
         return try {
-            val minigame = factory.createMinigame(fullId, this)
+            val minigame = pool.acquire(typeKey, fullId) ?: factory.createMinigame(fullId, this)
+            pool.scheduleRefill(typeKey, factory)
             if (minigame == null) {
                 plugin.logger.warning("Factory returned null minigame for type: $typeId")
                 return null
             }
 
+            arenas.acquire(typeKey)?.let(minigame::assignArena)
             activeGames[fullId] = minigame
+            gameTypes[fullId] = typeKey
             minigame.addEndListener { cleanupEndedGame(it) }
             minigame.initialize()
             minigame
@@ -96,32 +203,86 @@ class MinigameManager(val plugin: IremiaMinigameCorePlugin) {
      * @return result of the join attempt
      */
     fun addPlayerToGame(player: Player, gameId: MinigameId): AddPlayerResult {
-        val miniMessage = MiniMessage.miniMessage()
         if (isPlayerInGame(player)) {
-            player.sendMessage(
-                MinigameConfig.getMsgGameInProgress()
-                    .append(miniMessage.deserialize(" <red>You are already in a game! Leave it first."))
-            )
+            player.sendMessage(MinigameConfig.getMsgGameInProgress().append(alreadyInGameSuffix))
             return AddPlayerResult.AlreadyInGame
         }
 
         val game = activeGames[gameId]
         if (game == null) {
-            player.sendMessage(
-                MinigameConfig.getMsgGameInProgress()
-                    .append(miniMessage.deserialize(" <red>That game doesn't exist!"))
-            )
+            player.sendMessage(MinigameConfig.getMsgGameInProgress().append(gameNotFoundSuffix))
             return AddPlayerResult.GameNotFound
         }
 
         return if (game.addPlayer(player)) {
             playerGameMap[player.uniqueId] = gameId
+            matchmaking.dequeue(player.uniqueId)
+            startStatsSession(player.uniqueId, gameId)
             AddPlayerResult.Success
         } else {
             AddPlayerResult.Failed
         }
     }
 
+    /**
+     * Add a group of players to a minigame in one batch.
+     * Players already in a game are skipped; the rest are admitted together or not at all.
+     *
+     * @param players Players to add
+     * @param gameId ID of the minigame to add them to
+     * @return the players that joined
+     */
+    fun addPlayersToGame(players: Collection<Player>, gameId: MinigameId): List<Player> {
+        val game = activeGames[gameId]
+        if (game == null) {
+            players.forEach { it.sendMessage(MinigameConfig.getMsgGameInProgress().append(gameNotFoundSuffix)) }
+            return emptyList()
+        }
+
+        val eligible = players.filter { player ->
+            !isPlayerInGame(player).also { inGame ->
+                if (inGame) player.sendMessage(MinigameConfig.getMsgGameInProgress().append(alreadyInGameSuffix))
+            }
+        }
+        if (eligible.isEmpty()) {
+            return emptyList()
+        }
+
+        val joined = game.addPlayers(eligible)
+        joined.forEach { player ->
+            playerGameMap[player.uniqueId] = gameId
+            matchmaking.dequeue(player.uniqueId)
+            startStatsSession(player.uniqueId, gameId)
+        }
+        return joined
+    }
+
+    /**
+     * Remove a group of players from whatever minigames they are in,
+     * in one batch per game.
+     *
+     * @param players Players to remove
+     * @return number of players removed
+     */
+    fun removePlayersFromGame(players: Collection<Player>): Int {
+        var removedCount = 0
+        players.groupBy { playerGameMap[it.uniqueId] }.forEach { (gameId, group) ->
+            if (gameId == null) return@forEach
+            val game = activeGames[gameId]
+            if (game == null) {
+                plugin.logger.warning("${group.size} players were mapped to non-existent game $gameId. Cleaning up mapping.")
+                group.forEach { playerGameMap.remove(it.uniqueId) }
+                return@forEach
+            }
+            game.removePlayers(group).forEach { player ->
+                playerGameMap.remove(player.uniqueId)
+                stats.endSession(player.uniqueId)
+                removedCount++
+            }
+        }
+        return removedCount
+    }
+
     /**
      * Remove a player from their current minigame.
      *
@@ -139,31 +300,140 @@ class MinigameManager(val plugin: IremiaMinigameCorePlugin) {
         val removed = game.removePlayer(player)
         if (removed) {
             playerGameMap.remove(player.uniqueId)
+            stats.endSession(player.uniqueId)
         }
         return removed
     }
 
     /**
-     * End and clean up a minigame.
+     * Record the results of a finished round and, unless the game loops into another round,
+     * clean it up. Players of a looping game stay in it, so their mappings and play time
+     * sessions carry over to the next round.
      *
      * @param game The minigame to clean up
      */
     private fun cleanupEndedGame(game: Minigame) {
         val gameId = game.id
-        val gamePlayers = game.players.toSet()
+        val typeKey = gameTypes[gameId]
+        recordRound(game, typeKey)
+        if (game.shouldLoop && !game.destroyed) {
+            plugin.logger.info("Minigame $gameId finished a round")
+            return
+        }
+        unregisterGame(game)
+        if (!game.shouldLoop) {
+            game.releaseArena()
+        }
+        plugin.logger.info("Minigame $gameId has ended and been cleaned up")
 
-        gamePlayers.forEach { playerId ->
+        // Pool once end() has finished its own cleanup and the arena is restored,
+        // so a recycled instance never starts while old blocks are still being written
+        if (typeKey != null && game.isReusable && !game.shouldLoop) {
+            game.rollbackDone.whenComplete { _, _ ->
+                plugin.tickScheduler.schedule({
+                    if (pool.release(typeKey, game)) {
+                        plugin.logger.fine("Minigame $gameId returned to the $typeKey pool")
+                    }
+                }, 1L)
+            }
+        }
+    }
+
+    private fun recordRound(game: Minigame, typeKey: String?) {
+        if (typeKey != null && MinigameConfig.isRatingsEnabled()) {
+            try {
+                ratings.recordMatch(typeKey, game.getFinalPlacements())
+            } catch (e: Exception) {
+                plugin.logger.warning("Error updating ratings for ${game.id}: ${e.message}")
+            }
+        }
+        if (typeKey != null && MinigameConfig.isStatsEnabled()) {
+            try {
+                game.players.forEach { stats.increment(typeKey, it, StatType.GAMES_PLAYED) }
+                game.getFinalPlacements().firstOrNull()?.forEach { stats.increment(typeKey, it, StatType.WINS) }
+            } catch (e: Exception) {
+                plugin.logger.warning("Error recording statistics for ${game.id}: ${e.message}")
+            }
+        }
+    }
+
+    /**
+     * Forget a game and the players still in it, ending their play time sessions.
+     * Called when a game ends for good or is destroyed; does nothing the second time.
+     */
+    internal fun unregisterGame(game: Minigame) {
+        if (!activeGames.remove(game.id, game)) {
+            return
+        }
+        gameTypes.remove(game.id)
+        eventRouter.unsubscribeAll(game)
+        game.players.forEach { playerId ->
             playerGameMap.remove(playerId)
+            stats.endSession(playerId)
         }
+    }
 
-        activeGames.remove(gameId)
-        plugin.logger.info("Minigame $gameId has ended and been cleaned up")
+    /**
+     * Remove players from their game when they leave the server.
+     * Registered once for all games instead of once per game instance.
+     */
+    private fun registerQuitHandler() {
+        plugin.server.pluginManager.registerEvent(
+            PlayerQuitEvent::class.java,
+            eventRouter,
+            EventPriority.MONITOR,
+            { _, event ->
+                if (event is PlayerQuitEvent) {
+                    handlePlayerQuit(event.player)
+                }
+            },
+            plugin
+        )
+    }
+
+    private fun handlePlayerQuit(player: Player) {
+        matchmaking.dequeue(player.uniqueId)
+        val game = getPlayerGame(player) ?: return
+        if (!game.handleServerQuit(player)) return
+
+        // Schedule removal on next tick to avoid concurrent modification. By then the player
+        // entity is gone, so on region-threaded servers the removal runs as the retired callback
+        val removal = Runnable { game.mailbox.execute { removePlayerFromGame(player) } }
+        plugin.gameScheduler.runFor(player, removal, removal, 1L)
+    }
+
+    /**
+     * Add to a statistic of a player in a running minigame.
+     * Does nothing if statistics are disabled or the game is not running.
+     *
+     * @param gameId Minigame the statistic was earned in
+     * @param playerId Player
+     * @param stat Statistic to change
+     * @param amount Amount to add
+     */
+    @JvmOverloads
+    fun recordStat(gameId: MinigameId, playerId: UUID, stat: StatType, amount: Long = 1) {
+        if (MinigameConfig.isStatsEnabled()) {
+            gameTypes[gameId]?.let { stats.increment(it, playerId, stat, amount) }
+        }
+    }
+
+    private fun startStatsSession(playerId: UUID, gameId: MinigameId) {
+        if (MinigameConfig.isStatsEnabled()) {
+            gameTypes[gameId]?.let { stats.startSession(it, playerId) }
+        }
+    }
+
+    private fun startRatingFlushScheduler() {
+        val interval = 20L * MinigameConfig.getRatingsFlushIntervalSeconds()
+        plugin.tickScheduler.scheduleRepeating({ ratings.flush() }, interval, interval)
     }
 
     fun startHealthCheckScheduler() {
-        Bukkit.getScheduler().runTaskTimer(plugin, Runnable {
+        plugin.gameScheduler.runGlobalRepeating({
+            // Each arena checks itself on its own region, in order with its other work
             activeGames.values.forEach { minigame ->
-                minigame.performHealthCheck()
+                minigame.mailbox.execute { minigame.performHealthCheck() }
             }
         }, 20L * 30, 20L * 30) // Every 30 seconds
     }
@@ -175,6 +445,14 @@ class MinigameManager(val plugin: IremiaMinigameCorePlugin) {
      */
     fun getActiveGames(): Map<String, Minigame> = activeGames.toMap()
 
+    /**
+     * Get an active minigame by its ID without copying the active game map.
+     *
+     * @param gameId The minigame ID
+     * @return The minigame or null if no such game is active
+     */
+    fun getGame(gameId: MinigameId): Minigame? = activeGames[gameId]
+
     /**
      * Get registered minigame types.
      *
@@ -182,6 +460,14 @@ class MinigameManager(val plugin: IremiaMinigameCorePlugin) {
      */
     fun getMinigameTypes(): Set<String> = gameFactories.keys.toSet()
 
+    /**
+     * Get the type a running minigame was created from.
+     *
+     * @param gameId ID of the minigame
+     * @return the type ID, or null if no such game is running
+     */
+    fun getMinigameType(gameId: MinigameId): String? = gameTypes[gameId]
+
     /**
      * Get the minigame a player is currently in.
      *
@@ -0,0 +1,182 @@
+package org.alpacaindustries.iremiaminigamecore.minigame
+
+import org.bukkit.event.HandlerList
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentLinkedDeque
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Keeps ended and pre-built minigame instances per type so they can be reused.
+ *
+ * Only minigames that report [Minigame.isReusable] are pooled. Acquiring an instance
+ * recycles it under the requested ID, which runs its [Minigame.onRecycle] reset hook.
+ * Each type is kept topped up to a warm size, built on the tick after the pool drains.
+ */
+class MinigamePool internal constructor(
+    private val manager: MinigameManager,
+    private val warmSize: Int,
+    private val maxIdle: Int
+) {
+
+    private val idle = ConcurrentHashMap<String, ConcurrentLinkedDeque<Minigame>>()
+    private val stats = ConcurrentHashMap<String, TypeStats>()
+    private val nonReusableTypes = ConcurrentHashMap.newKeySet<String>()
+    private val refillPending = ConcurrentHashMap.newKeySet<String>()
+    private val warmCounter = AtomicInteger(0)
+
+    /**
+     * Take an idle instance of a type and recycle it under a new ID.
+     *
+     * @param typeKey Normalized minigame type
+     * @param gameId ID the instance will be known by
+     * @return A recycled, uninitialized minigame, or null on a pool miss
+     */
+    fun acquire(typeKey: String, gameId: String): Minigame? {
+        val typeStats = statsFor(typeKey)
+        val deque = idle[typeKey]
+        while (true) {
+            val game = deque?.pollFirst() ?: break
+            try {
+                game.recycle(gameId)
+                typeStats.hits.incrementAndGet()
+                return game
+            } catch (e: Exception) {
+                manager.plugin.logger.warning("Discarding pooled minigame of type $typeKey: ${e.message}")
+            }
+        }
+        typeStats.misses.incrementAndGet()
+        return null
+    }
+
+    /**
+     * Return an ended minigame to the pool.
+     *
+     * @return true if the instance was pooled, false if it should be discarded
+     */
+    fun release(typeKey: String, game: Minigame): Boolean {
+        // Wrapped games only report their state through the delegate, so recycle() checks it on acquire
+        if (!game.isReusable || game.destroyed || game.playerCount > 0) {
+            return false
+        }
+
+        val deque = idle.computeIfAbsent(typeKey) { ConcurrentLinkedDeque() }
+        if (deque.size >= maxIdle) {
+            return false
+        }
+
+        // Ended games may still have legacy @EventHandler methods registered
+        HandlerList.unregisterAll(game)
+        deque.offerLast(game)
+        statsFor(typeKey).released.incrementAndGet()
+        return true
+    }
+
+    /**
+     * Top up the idle instances of a type to the warm size on the next tick.
+     */
+    fun scheduleRefill(typeKey: String, factory: MinigameFactory) {
+        if (warmSize <= 0 || typeKey in nonReusableTypes || idleCount(typeKey) >= warmSize) {
+            return
+        }
+        if (!refillPending.add(typeKey)) {
+            return
+        }
+
+        manager.plugin.tickScheduler.schedule({
+            refillPending.remove(typeKey)
+            refill(typeKey, factory)
+        }, 1L)
+    }
+
+    private fun refill(typeKey: String, factory: MinigameFactory) {
+        val deque = idle.computeIfAbsent(typeKey) { ConcurrentLinkedDeque() }
+        while (deque.size < warmSize) {
+            val game = try {
+                factory.createMinigame("$typeKey-pooled-${warmCounter.incrementAndGet()}", manager)
+            } catch (e: Exception) {
+                manager.plugin.logger.warning("Error pre-building minigame of type $typeKey: ${e.message}")
+                null
+            } ?: return
+
+            if (!game.isReusable) {
+                // Never initialized, so there is nothing to tear down
+                nonReusableTypes.add(typeKey)
+                return
+            }
+            deque.offerLast(game)
+            statsFor(typeKey).warmed.incrementAndGet()
+        }
+    }
+
+    /**
+     * Drop all idle instances of a type, e.g. when the type is unregistered.
+     */
+    fun clear(typeKey: String) {
+        idle.remove(typeKey)
+        nonReusableTypes.remove(typeKey)
+    }
+
+    /**
+     * Drop all idle instances.
+     */
+    fun shutdown() {
+        idle.clear()
+    }
+
+    /**
+     * Get the number of idle instances of a type.
+     */
+    fun idleCount(typeKey: String): Int = idle[typeKey]?.size ?: 0
+
+    /**
+     * Get pool statistics for a type.
+     */
+    fun getStats(typeKey: String): PoolStats {
+        val typeStats = statsFor(typeKey)
+        return PoolStats(
+            typeStats.hits.get(),
+            typeStats.misses.get(),
+            typeStats.released.get(),
+            typeStats.warmed.get(),
+            idleCount(typeKey)
+        )
+    }
+
+    /**
+     * Get pool statistics for every type that has been used.
+     */
+    fun getAllStats(): Map<String, PoolStats> = stats.keys.associateWith { getStats(it) }
+
+    private fun statsFor(typeKey: String): TypeStats = stats.computeIfAbsent(typeKey) { TypeStats() }
+
+    private class TypeStats {
+        val hits = AtomicLong(0)
+        val misses = AtomicLong(0)
+        val released = AtomicLong(0)
+        val warmed = AtomicLong(0)
+    }
+}
+
+/**
+ * Point-in-time pool statistics of one minigame type
+ *
+ * @property hits Creations served from the pool
+ * @property misses Creations that had to build a new instance
+ * @property released Ended games returned to the pool
+ * @property warmed Instances pre-built to keep the pool warm
+ * @property idle Instances currently waiting in the pool
+ */
+data class PoolStats(
+    val hits: Long,
+    val misses: Long,
+    val released: Long,
+    val warmed: Long,
+    val idle: Int
+) {
+    /**
+     * Share of creations served from the pool, as a percentage
+     */
+    val hitRatio: Double
+        get() = if (hits + misses > 0) hits.toDouble() / (hits + misses) * 100 else 0.0
+}
@@ -0,0 +1,189 @@
+package org.alpacaindustries.iremiaminigamecore.minigame
+
+import java.util.*
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Tracks the participation state of every player in a round.
+ *
+ * Lookups are O(1) and lock-free so they can be used on hot event paths.
+ * Mutations are serialized so the alive set, state map and elimination log always agree.
+ */
+class ParticipantTracker {
+
+    private val states = ConcurrentHashMap<UUID, ParticipantState>()
+    private val alive: MutableSet<UUID> = ConcurrentHashMap.newKeySet()
+    private val aliveView: Set<UUID> = Collections.unmodifiableSet(alive)
+    private val eliminations = mutableListOf<Elimination>()
+
+    /**
+     * Get a live, read-only view of the alive players
+     */
+    val alivePlayers: Set<UUID>
+        get() = aliveView
+
+    /**
+     * Get the number of players still alive
+     */
+    val aliveCount: Int
+        get() = alive.size
+
+    /**
+     * Check if a player is alive in the current round
+     */
+    fun isAlive(playerId: UUID): Boolean = alive.contains(playerId)
+
+    /**
+     * Get the state of a player, or null if they are not tracked
+     */
+    fun getState(playerId: UUID): ParticipantState? = states[playerId]
+
+    /**
+     * Mark a player as alive
+     */
+    @Synchronized
+    fun markAlive(playerId: UUID) {
+        states[playerId] = ParticipantState.ALIVE
+        alive.add(playerId)
+    }
+
+    /**
+     * Mark a player as spectating. Spectators are never counted as alive.
+     */
+    @Synchronized
+    fun markSpectating(playerId: UUID) {
+        alive.remove(playerId)
+        states[playerId] = ParticipantState.SPECTATING
+    }
+
+    /**
+     * Eliminate an alive player and record their placement.
+     *
+     * @return the elimination record, or null if the player was not alive
+     */
+    @Synchronized
+    fun eliminate(playerId: UUID, reason: String): Elimination? {
+        if (!alive.remove(playerId)) {
+            return null
+        }
+
+        states[playerId] = ParticipantState.ELIMINATED
+        val elimination = Elimination(playerId, reason, alive.size + 1, System.currentTimeMillis())
+        eliminations.add(elimination)
+        return elimination
+    }
+
+    /**
+     * Stop tracking a player entirely. The elimination log is kept for placements.
+     */
+    @Synchronized
+    fun remove(playerId: UUID) {
+        alive.remove(playerId)
+        states.remove(playerId)
+    }
+
+    /**
+     * Get eliminations in the order they happened
+     */
+    @Synchronized
+    fun getEliminationLog(): List<Elimination> = eliminations.toList()
+
+    /**
+     * Get player IDs ordered by placement, best first.
+     * Alive players share the top placements, followed by eliminations in reverse order.
+     */
+    @Synchronized
+    fun getPlacements(): List<UUID> {
+        val placements = ArrayList<UUID>(alive.size + eliminations.size)
+        placements.addAll(alive)
+        for (i in eliminations.indices.reversed()) {
+            placements.add(eliminations[i].playerId)
+        }
+        return placements
+    }
+
+    /**
+     * Get players grouped by placement, best first.
+     * All alive players share the first group; each elimination forms its own group.
+     */
+    @Synchronized
+    fun getPlacementTiers(): List<Set<UUID>> {
+        val tiers = ArrayList<Set<UUID>>(eliminations.size + 1)
+        if (alive.isNotEmpty()) {
+            tiers.add(alive.toSet())
+        }
+        for (i in eliminations.indices.reversed()) {
+            tiers.add(setOf(eliminations[i].playerId))
+        }
+        return tiers
+    }
+
+    /**
+     * Get a consistent snapshot of participant counts, e.g. for scoreboards
+     */
+    @Synchronized
+    fun snapshot(): ParticipantSnapshot {
+        var spectating = 0
+        var eliminated = 0
+        states.values.forEach {
+            when (it) {
+                ParticipantState.SPECTATING -> spectating++
+                ParticipantState.ELIMINATED -> eliminated++
+                ParticipantState.ALIVE -> { }
+            }
+        }
+        return ParticipantSnapshot(alive.size, eliminated, spectating, alive.toSet())
+    }
+
+    /**
+     * Clear all state, including the elimination log
+     */
+    @Synchronized
+    fun clear() {
+        alive.clear()
+        states.clear()
+        eliminations.clear()
+    }
+}
+
+/**
+ * Participation state of a player within a round
+ */
+enum class ParticipantState {
+    /**
+     * Player is still in the round
+     */
+    ALIVE,
+
+    /**
+     * Player was eliminated this round
+     */
+    ELIMINATED,
+
+    /**
+     * Player is watching without having taken part in the round
+     */
+    SPECTATING
+}
+
+/**
+ * A recorded elimination.
+ *
+ * @property placement Final placement of the player, where 1 is the winner
+ */
+data class Elimination(
+    val playerId: UUID,
+    val reason: String,
+    val placement: Int,
+    val timestamp: Long
+)
+
+/**
+ * Point-in-time view of participant counts
+ */
+data class ParticipantSnapshot(
+    val alive: Int,
+    val eliminated: Int,
+    val spectating: Int,
+    val alivePlayers: Set<UUID>
+)
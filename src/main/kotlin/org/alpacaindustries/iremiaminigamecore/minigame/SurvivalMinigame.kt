@@ -1,12 +1,13 @@
 package org.alpacaindustries.iremiaminigamecore.minigame
 
+import org.alpacaindustries.iremiaminigamecore.stats.StatType
+import org.alpacaindustries.iremiaminigamecore.system.MovementPipeline
 import org.alpacaindustries.iremiaminigamecore.system.ui.GameScoreboard
 import org.alpacaindustries.iremiaminigamecore.util.CountdownTimer
 import org.bukkit.Bukkit
 import org.bukkit.GameMode
 import org.bukkit.Sound
 import org.bukkit.entity.Player
-import org.bukkit.event.EventHandler
 import org.bukkit.event.entity.EntityDamageEvent
 import org.bukkit.event.entity.PlayerDeathEvent
 import org.bukkit.event.player.PlayerMoveEvent
@@ -28,10 +29,42 @@ abstract class SurvivalMinigame(
     protected val countdownTimer: CountdownTimer = CountdownTimer(manager.plugin, countdownSeconds)
         .onCount(::onCountdown)
         .onFinish(::start)
+        .executor(mailbox)
 
-    protected val scoreboard: GameScoreboard = GameScoreboard(Component.text(displayName, NamedTextColor.GOLD))
+    protected val scoreboard: GameScoreboard =
+        GameScoreboard(Component.text(displayName, NamedTextColor.GOLD), manager.plugin.tickScheduler)
 
-    val alivePlayers: MutableList<UUID> = mutableListOf()
+    /**
+     * Alive, eliminated and spectating players of the current round
+     */
+    protected val participants: ParticipantTracker = ParticipantTracker()
+
+    /**
+     * Read-only view of the players still alive in the current round
+     */
+    val alivePlayerIds: Set<UUID>
+        get() = participants.alivePlayers
+
+    /**
+     * Snapshot of the players alive in the current round.
+     *
+     * This used to be the mutable list the game tracked players with. It is now a read-only
+     * copy: changing it has no effect and throws. Use [alivePlayerIds] to read the alive
+     * players and, in subclasses, [participants] or [eliminatePlayer] to change them.
+     */
+    @Deprecated("Read-only snapshot; use alivePlayerIds or participants", ReplaceWith("alivePlayerIds"))
+    val alivePlayers: List<UUID>
+        get() = Collections.unmodifiableList(participants.alivePlayers.toList())
+
+    /**
+     * Movement callbacks for running games. Rotation-only and same-block moves are
+     * discarded before the alive check or any callback runs.
+     */
+    protected val movement: MovementPipeline = MovementPipeline()
+        .filter { state == MinigameState.RUNNING && isPlayerInGame(it) }
+
+    // Set while a group joins or leaves, so the scoreboard and win check run once for the group
+    private var inBatch = false
 
     companion object {
         private const val DEFAULT_COUNTDOWN_SECONDS = 10
@@ -42,17 +75,35 @@ abstract class SurvivalMinigame(
     constructor(id: String, displayName: String, manager: MinigameManager) :
         this(id, displayName, manager, DEFAULT_COUNTDOWN_SECONDS)
 
+    init {
+        // Matches leave the arena as they found it
+        isRollbackEnabled = true
+    }
+
+    override fun initialize() {
+        super.initialize()
+
+        subscribe(PlayerDeathEvent::class.java) { onPlayerDeath(it) }
+        subscribe(EntityDamageEvent::class.java) { onPlayerDamage(it) }
+        subscribe(PlayerMoveEvent::class.java) { onPlayerMove(it) }
+
+        movement.onYThreshold(yThreshold) { eliminatePlayer(it, "fell off") }
+    }
+
     override fun onStart() {
         super.onStart()
 
-        alivePlayers.clear()
+        participants.clear()
         getValidOnlinePlayers().forEach { player ->
-            alivePlayers.add(player.uniqueId)
-            preparePlayer(player)
+            participants.markAlive(player.uniqueId)
+            runForPlayer(player) { preparePlayer(player) }
         }
 
         updateScoreboard()
         broadcastGameStart()
+
+        // Players who fell below the threshold before the game was running are out too
+        getValidOnlinePlayers().forEach(movement::check)
     }
 
     override fun onEnd() {
@@ -68,12 +119,17 @@ abstract class SurvivalMinigame(
 
         when (state) {
             MinigameState.WAITING, MinigameState.COUNTDOWN -> {
-                updateWaitingScoreboard()
-                scoreboard.showTo(player)
+                if (!inBatch) {
+                    updateWaitingScoreboard()
+                }
+                runForPlayer(player) { scoreboard.showTo(player) }
             }
             MinigameState.RUNNING -> {
-                player.gameMode = GameMode.SPECTATOR
-                scoreboard.showTo(player)
+                participants.markSpectating(player.uniqueId)
+                runForPlayer(player) {
+                    player.gameMode = GameMode.SPECTATOR
+                    scoreboard.showTo(player)
+                }
                 player.sendMessage(gamePrefix.append(Component.text("Game in progress! You are now spectating.")))
             }
             MinigameState.ENDED -> {
@@ -85,11 +141,41 @@ abstract class SurvivalMinigame(
     override fun onPlayerLeave(player: Player) {
         super.onPlayerLeave(player)
 
-        alivePlayers.remove(player.uniqueId)
-        scoreboard.hideFrom(player)
-        player.gameMode = GameMode.ADVENTURE
+        val elimination = participants.eliminate(player.uniqueId, "left the game")
+        participants.remove(player.uniqueId)
+        runForPlayer(player) {
+            scoreboard.hideFrom(player)
+            player.gameMode = GameMode.ADVENTURE
+        }
 
-        onPlayerEliminated(player)
+        if (elimination != null) {
+            onPlayerEliminated(player)
+            notifyPlayerEliminated(player, elimination.reason)
+        }
+        if (!inBatch) {
+            checkWinCondition()
+        }
+    }
+
+    override fun onPlayersJoin(players: List<Player>) {
+        inBatch = true
+        try {
+            super.onPlayersJoin(players)
+        } finally {
+            inBatch = false
+        }
+        if (state == MinigameState.WAITING || state == MinigameState.COUNTDOWN) {
+            updateWaitingScoreboard()
+        }
+    }
+
+    override fun onPlayersLeave(players: List<Player>) {
+        inBatch = true
+        try {
+            super.onPlayersLeave(players)
+        } finally {
+            inBatch = false
+        }
         checkWinCondition()
     }
 
@@ -98,16 +184,29 @@ abstract class SurvivalMinigame(
         countdownTimer.start()
     }
 
+    override fun getFinalPlacements(): List<Set<UUID>> = participants.getPlacementTiers()
+
+    override fun onRecycle() {
+        super.onRecycle()
+
+        countdownTimer.stop()
+        participants.clear()
+        // initialize() registers the movement callbacks again
+        movement.clear()
+        scoreboard.hideFromAll()
+        scoreboard.clearLines()
+    }
+
     /**
      * Handle player elimination from the game
      */
     protected fun eliminatePlayer(player: Player, reason: String) {
-        if (!alivePlayers.contains(player.uniqueId)) {
+        if (participants.eliminate(player.uniqueId, reason) == null) {
             return
         }
 
-        alivePlayers.remove(player.uniqueId)
-        player.gameMode = GameMode.SPECTATOR
+        runForPlayer(player) { player.gameMode = GameMode.SPECTATOR }
+        recordStat(player.uniqueId, StatType.ELIMINATIONS)
 
         broadcastMessage(
             gamePrefix.append(
@@ -117,6 +216,7 @@ abstract class SurvivalMinigame(
         )
 
         onPlayerEliminated(player)
+        notifyPlayerEliminated(player, reason)
         updateScoreboard()
         checkWinCondition()
     }
@@ -134,16 +234,18 @@ abstract class SurvivalMinigame(
         }
     }
 
-    // Event Handlers
-    @EventHandler
+    // Event handlers, dispatched by the manager's event router
     fun onPlayerDeath(event: PlayerDeathEvent) {
         val player = event.entity
         if (isPlayerInGame(player)) {
+            val killer = player.killer
+            if (killer != null && killer != player && isPlayerInGame(killer)) {
+                recordStat(killer.uniqueId, StatType.KILLS)
+            }
             eliminatePlayer(player, "died")
         }
     }
 
-    @EventHandler
     fun onPlayerDamage(event: EntityDamageEvent) {
         val entity = event.entity
         if (entity !is Player) return
@@ -156,21 +258,13 @@ abstract class SurvivalMinigame(
         }
     }
 
-    @EventHandler
     fun onPlayerMove(event: PlayerMoveEvent) {
-        val player = event.player
-        if (!isPlayerInGame(player) || state != MinigameState.RUNNING) {
-            return
-        }
-
-        if (player.location.y <= yThreshold) {
-            eliminatePlayer(player, "fell off")
-        }
+        movement.handle(event)
     }
 
     // Helper methods
     protected fun isPlayerInGame(player: Player): Boolean {
-        return players.contains(player.uniqueId) && alivePlayers.contains(player.uniqueId)
+        return participants.isAlive(player.uniqueId)
     }
 
     protected fun cleanupPlayers() {
@@ -178,35 +272,31 @@ abstract class SurvivalMinigame(
         players.forEach { playerId ->
             getPlayerById(playerId)?.let { player ->
                 if (player.isOnline) {
-                    // Reset game mode
-                    player.gameMode = GameMode.ADVENTURE
-
-                    // Hide scoreboard FIRST before any other cleanup
-                    try {
-                        scoreboard.hideFrom(player)
-                    } catch (e: Exception) {
-                        // Fallback: Force reset to main scoreboard if hideFrom fails
-                        player.scoreboard = Bukkit.getScoreboardManager()!!.mainScoreboard
+                    runForPlayer(player) {
+                        // Reset game mode
+                        player.gameMode = GameMode.ADVENTURE
+
+                        // Hide scoreboard FIRST before any other cleanup
+                        try {
+                            scoreboard.hideFrom(player)
+                        } catch (e: Exception) {
+                            // Fallback: Force reset to main scoreboard if hideFrom fails
+                            player.scoreboard = Bukkit.getScoreboardManager()!!.mainScoreboard
+                        }
                     }
 
-                    // Teleport player to world spawn
-                    val worldSpawn = player.world.spawnLocation
-                    player.teleport(worldSpawn)
-
-                    // Play success sound
-                    player.playSound(player.location, Sound.ENTITY_PLAYER_LEVELUP, 1.0f, 0.5f)
+                    // Teleport player out of the arena, playing the success sound on arrival
+                    teleportAsync(player, getReturnLocation(player)).thenAccept { arrived ->
+                        if (arrived) {
+                            player.playSound(player.location, Sound.ENTITY_PLAYER_LEVELUP, 1.0f, 0.5f)
+                        }
+                    }
                 }
             }
         }
 
-        // Also clean up any remaining online players just in case
-        getValidOnlinePlayers().forEach { player ->
-            try {
-                scoreboard.hideFrom(player)
-            } catch (e: Exception) {
-                player.scoreboard = Bukkit.getScoreboardManager()!!.mainScoreboard
-            }
-        }
+        // Also clean up any remaining viewers, forgetting those who disconnected
+        scoreboard.hideFromAll()
     }
 
     protected fun updateWaitingScoreboard() {
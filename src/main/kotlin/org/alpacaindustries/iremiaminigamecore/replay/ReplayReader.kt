@@ -0,0 +1,170 @@
+package org.alpacaindustries.iremiaminigamecore.replay
+
+import org.alpacaindustries.iremiaminigamecore.replay.ReplayRecorder.Companion.CHANGED_ACTIONS
+import org.alpacaindustries.iremiaminigamecore.replay.ReplayRecorder.Companion.CHANGED_POSITION
+import org.alpacaindustries.iremiaminigamecore.replay.ReplayRecorder.Companion.CHANGED_ROTATION
+import org.alpacaindustries.iremiaminigamecore.replay.ReplayRecorder.Companion.FRAME_END
+import org.alpacaindustries.iremiaminigamecore.replay.ReplayRecorder.Companion.FRAME_PLAYER_ADDED
+import org.alpacaindustries.iremiaminigamecore.replay.ReplayRecorder.Companion.FRAME_PLAYER_REMOVED
+import org.alpacaindustries.iremiaminigamecore.replay.ReplayRecorder.Companion.FRAME_PLAYER_STATE
+import org.alpacaindustries.iremiaminigamecore.replay.ReplayRecorder.Companion.FRAME_TICK
+import org.alpacaindustries.iremiaminigamecore.replay.ReplayRecorder.Companion.MAGIC
+import org.alpacaindustries.iremiaminigamecore.replay.ReplayRecorder.Companion.UNITS_PER_BLOCK
+import org.alpacaindustries.iremiaminigamecore.replay.ReplayRecorder.Companion.VERSION
+import java.io.File
+import java.io.IOException
+import java.nio.BufferUnderflowException
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.StandardOpenOption
+import java.util.*
+import java.util.function.Consumer
+
+/**
+ * Reads a replay written by [ReplayRecorder] back into absolute player samples.
+ *
+ * Reading blocks on file I/O, so call it off the main thread. A replay that is still being
+ * recorded can be read up to the last data copied to its file.
+ */
+class ReplayReader(private val file: File) {
+
+    /**
+     * Read all samples in recording order.
+     */
+    fun read(): List<ReplaySample> {
+        val samples = ArrayList<ReplaySample>()
+        forEach { samples.add(it) }
+        return samples
+    }
+
+    /**
+     * Stream all samples in recording order.
+     *
+     * @param action Called with every added, moved and removed player sample
+     * @return the time recording started, in epoch milliseconds
+     * @throws IllegalStateException if the file is not a replay or cannot be read
+     */
+    fun forEach(action: Consumer<ReplaySample>): Long {
+        try {
+            FileChannel.open(file.toPath(), StandardOpenOption.READ).use { channel ->
+                val buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                check(buffer.remaining() >= 13 && buffer.int == MAGIC) { "${file.name} is not a replay" }
+                val version = buffer.get().toInt()
+                check(version == VERSION) { "Unsupported replay version $version in ${file.name}" }
+                val startedAt = buffer.long
+                decode(buffer, action)
+                return startedAt
+            }
+        } catch (e: IOException) {
+            throw IllegalStateException("Could not read replay ${file.name}", e)
+        }
+    }
+
+    private fun decode(buffer: ByteBuffer, action: Consumer<ReplaySample>) {
+        val players = HashMap<Int, SlotState>()
+        var tick = 0L
+        try {
+            while (buffer.hasRemaining()) {
+                val type = buffer.get().toInt() and 0xFF
+                when {
+                    type == FRAME_END -> return
+                    type == FRAME_TICK -> tick += readVarInt(buffer)
+                    type == FRAME_PLAYER_ADDED -> {
+                        val slot = readVarInt(buffer)
+                        val state = SlotState(UUID(buffer.long, buffer.long))
+                        state.x = buffer.int
+                        state.y = buffer.int
+                        state.z = buffer.int
+                        state.yaw = buffer.get()
+                        state.pitch = buffer.get()
+                        players[slot] = state
+                        action.accept(state.toSample(ReplaySample.Type.ADDED, tick))
+                    }
+                    type == FRAME_PLAYER_REMOVED -> {
+                        val state = players.remove(readVarInt(buffer)) ?: continue
+                        action.accept(state.toSample(ReplaySample.Type.REMOVED, tick))
+                    }
+                    type and 0xF0 == FRAME_PLAYER_STATE -> {
+                        val state = players[readVarInt(buffer)] ?: return // Corrupt stream
+                        if (type and CHANGED_POSITION != 0) {
+                            state.x += readSignedVarInt(buffer)
+                            state.y += readSignedVarInt(buffer)
+                            state.z += readSignedVarInt(buffer)
+                        }
+                        if (type and CHANGED_ROTATION != 0) {
+                            state.yaw = buffer.get()
+                            state.pitch = buffer.get()
+                        }
+                        if (type and CHANGED_ACTIONS != 0) {
+                            state.actions = buffer.get().toInt() and 0xFF
+                        }
+                        action.accept(state.toSample(ReplaySample.Type.MOVED, tick))
+                    }
+                    else -> return // Unknown frame, nothing after it can be decoded
+                }
+            }
+        } catch (e: BufferUnderflowException) {
+            // Recording cut off in the middle of a frame
+        }
+    }
+
+    private fun readVarInt(buffer: ByteBuffer): Int {
+        var value = 0
+        var shift = 0
+        while (shift < 35) {
+            val b = buffer.get().toInt()
+            value = value or ((b and 0x7F) shl shift)
+            if (b and 0x80 == 0) {
+                return value
+            }
+            shift += 7
+        }
+        throw BufferUnderflowException()
+    }
+
+    private fun readSignedVarInt(buffer: ByteBuffer): Int {
+        val raw = readVarInt(buffer)
+        return (raw ushr 1) xor -(raw and 1)
+    }
+
+    private class SlotState(val playerId: UUID) {
+        var x = 0
+        var y = 0
+        var z = 0
+        var yaw: Byte = 0
+        var pitch: Byte = 0
+        var actions = 0
+
+        fun toSample(type: ReplaySample.Type, tick: Long) = ReplaySample(
+            type, tick, playerId,
+            x / UNITS_PER_BLOCK, y / UNITS_PER_BLOCK, z / UNITS_PER_BLOCK,
+            yaw * 360f / 256f, pitch * 360f / 256f,
+            actions
+        )
+    }
+}
+
+/**
+ * Absolute state of a player at one tick of a replay
+ *
+ * @property type Whether the player was added, moved or removed at this tick
+ * @property tick Ticks since recording started
+ * @property actions Bits of the [ReplayAction]s active at this tick, see [ReplayAction.isSet]
+ */
+data class ReplaySample(
+    val type: Type,
+    val tick: Long,
+    val playerId: UUID,
+    val x: Double,
+    val y: Double,
+    val z: Double,
+    val yaw: Float,
+    val pitch: Float,
+    val actions: Int
+) {
+    enum class Type {
+        ADDED,
+        MOVED,
+        REMOVED
+    }
+}
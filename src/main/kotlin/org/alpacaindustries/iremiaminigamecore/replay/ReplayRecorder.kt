@@ -0,0 +1,404 @@
+package org.alpacaindustries.iremiaminigamecore.replay
+
+import org.alpacaindustries.iremiaminigamecore.util.GameScheduler
+import org.bukkit.Location
+import org.bukkit.entity.Player
+import java.io.File
+import java.io.IOException
+import java.nio.MappedByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.StandardOpenOption
+import java.util.*
+import java.util.logging.Logger
+import kotlin.math.floor
+
+/**
+ * Records participant positions, rotations and actions of one match every tick.
+ *
+ * Each tick only the players that changed are written, as deltas from their previous
+ * sample in 1/32 of a block and zigzag varints, so a walking player costs about seven bytes
+ * per tick and a standing one nothing. Samples go into an in-memory ring buffer that is
+ * copied into a memory-mapped replay file whenever it is half full; the file grows one
+ * mapped chunk at a time up to a size limit. Sampling allocates nothing: locations are
+ * read into a reused [Location] and all per-player state lives in primitive arrays.
+ *
+ * All methods are thread-safe. Read replays back with [ReplayReader].
+ */
+class ReplayRecorder internal constructor(
+    val file: File,
+    private val capacity: Int,
+    bufferBytes: Int,
+    private val maxFileBytes: Long,
+    private val logger: Logger
+) {
+
+    internal companion object {
+        const val MAGIC = 0x49525031 // "IRP1"
+        const val VERSION = 1
+        const val UNITS_PER_BLOCK = 32.0
+
+        // Frame types; 0 marks the end of the recording
+        const val FRAME_END = 0
+        const val FRAME_TICK = 1
+        const val FRAME_PLAYER_ADDED = 2
+        const val FRAME_PLAYER_REMOVED = 3
+        // Low bits carry which parts of the player state follow
+        const val FRAME_PLAYER_STATE = 0x10
+        const val CHANGED_POSITION = 1
+        const val CHANGED_ROTATION = 2
+        const val CHANGED_ACTIONS = 4
+
+        private const val CHUNK_BYTES = 1 shl 20
+        private const val MAX_FRAME_BYTES = 64
+    }
+
+    private val ring: ByteArray
+    private val ringMask: Int
+
+    // Monotonic positions in the stream; the ring holds the bytes between them
+    private var head = 0L
+    private var tail = 0L
+
+    private val channel: FileChannel
+    private var mapped: MappedByteBuffer? = null
+    private var mappedOffset = 0L
+
+    private val slots = arrayOfNulls<Player>(capacity)
+    private val slotOf = HashMap<UUID, Int>()
+    private val lastX = IntArray(capacity)
+    private val lastY = IntArray(capacity)
+    private val lastZ = IntArray(capacity)
+    private val lastYaw = ByteArray(capacity)
+    private val lastPitch = ByteArray(capacity)
+    private val lastActions = IntArray(capacity)
+    private val pendingActions = IntArray(capacity)
+    private val scratch = Location(null, 0.0, 0.0, 0.0)
+    private val sampler = Runnable { sample() }
+
+    private var task: GameScheduler.Task = GameScheduler.Task.NONE
+    private var tick = 0L
+    private var lastWrittenTick = 0L
+    private var stopped = false
+    private var closed = false
+    private var warnedCapacity = false
+
+    init {
+        var size = Integer.highestOneBit(bufferBytes.coerceAtLeast(MAX_FRAME_BYTES * 4))
+        if (size < bufferBytes) {
+            size = size shl 1
+        }
+        ring = ByteArray(size)
+        ringMask = size - 1
+
+        file.parentFile?.mkdirs()
+        channel = FileChannel.open(
+            file.toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING
+        )
+        writeInt(MAGIC)
+        writeByte(VERSION)
+        writeLong(System.currentTimeMillis())
+    }
+
+    /**
+     * Number of players being recorded
+     */
+    val trackedCount: Int
+        @Synchronized get() = slotOf.size
+
+    /**
+     * Bytes recorded so far, including those not copied to the file yet
+     */
+    val recordedBytes: Long
+        @Synchronized get() = tail
+
+    /**
+     * Check if recording has stopped, either through [stop] or because the file is full
+     */
+    val isStopped: Boolean
+        @Synchronized get() = stopped
+
+    /**
+     * Start sampling every tick on the thread owning the arena.
+     *
+     * @param arena Location the match takes place at, or null to sample on the global region
+     */
+    @Synchronized
+    fun start(scheduler: GameScheduler, arena: Location?) {
+        if (stopped || !task.isCancelled) {
+            return
+        }
+        task = if (arena != null) scheduler.runAtRepeating(arena, sampler, 1L, 1L)
+        else scheduler.runGlobalRepeating(sampler, 1L, 1L)
+    }
+
+    /**
+     * Start recording a player.
+     */
+    @Synchronized
+    fun track(player: Player) {
+        if (stopped || slotOf.containsKey(player.uniqueId)) {
+            return
+        }
+        val slot = slots.indexOfFirst { it == null }
+        if (slot < 0) {
+            if (!warnedCapacity) {
+                warnedCapacity = true
+                logger.warning("Replay ${file.name} is full, not recording ${player.name}")
+            }
+            return
+        }
+
+        player.getLocation(scratch)
+        slots[slot] = player
+        slotOf[player.uniqueId] = slot
+        lastX[slot] = toUnits(scratch.x)
+        lastY[slot] = toUnits(scratch.y)
+        lastZ[slot] = toUnits(scratch.z)
+        lastYaw[slot] = toAngle(scratch.yaw)
+        lastPitch[slot] = toAngle(scratch.pitch)
+        lastActions[slot] = 0
+        pendingActions[slot] = 0
+
+        if (!ensureSpace(MAX_FRAME_BYTES)) {
+            return
+        }
+        writeTick()
+        writeByte(FRAME_PLAYER_ADDED)
+        writeVarInt(slot)
+        writeLong(player.uniqueId.mostSignificantBits)
+        writeLong(player.uniqueId.leastSignificantBits)
+        writeInt(lastX[slot])
+        writeInt(lastY[slot])
+        writeInt(lastZ[slot])
+        writeByte(lastYaw[slot].toInt())
+        writeByte(lastPitch[slot].toInt())
+    }
+
+    /**
+     * Stop recording a player.
+     */
+    @Synchronized
+    fun untrack(playerId: UUID) {
+        if (stopped) {
+            return
+        }
+        val slot = slotOf.remove(playerId) ?: return
+        slots[slot] = null
+
+        if (!ensureSpace(MAX_FRAME_BYTES)) {
+            return
+        }
+        writeTick()
+        writeByte(FRAME_PLAYER_REMOVED)
+        writeVarInt(slot)
+    }
+
+    /**
+     * Mark an action of a player for the next sample.
+     */
+    @Synchronized
+    fun markAction(playerId: UUID, action: ReplayAction) {
+        val slot = slotOf[playerId] ?: return
+        pendingActions[slot] = pendingActions[slot] or action.bit
+    }
+
+    /**
+     * Stop sampling, copy everything recorded to the file and close it.
+     */
+    @Synchronized
+    fun stop() {
+        if (closed) {
+            return
+        }
+        closed = true
+        task.cancel()
+        if (!stopped) {
+            spill()
+            stopped = true
+        }
+        try {
+            mapped?.force()
+            channel.close()
+        } catch (e: IOException) {
+            logger.warning("Failed to close replay ${file.name}: ${e.message}")
+        }
+        mapped = null
+    }
+
+    @Synchronized
+    private fun sample() {
+        if (stopped) {
+            return
+        }
+        tick++
+        for (slot in 0 until capacity) {
+            val player = slots[slot] ?: continue
+            player.getLocation(scratch)
+            val x = toUnits(scratch.x)
+            val y = toUnits(scratch.y)
+            val z = toUnits(scratch.z)
+            val yaw = toAngle(scratch.yaw)
+            val pitch = toAngle(scratch.pitch)
+            var actions = pendingActions[slot]
+            pendingActions[slot] = 0
+            if (player.isSneaking) actions = actions or ReplayAction.SNEAKING.bit
+            if (player.isSprinting) actions = actions or ReplayAction.SPRINTING.bit
+            if (player.isGliding) actions = actions or ReplayAction.GLIDING.bit
+
+            var changed = 0
+            if (x != lastX[slot] || y != lastY[slot] || z != lastZ[slot]) changed = changed or CHANGED_POSITION
+            if (yaw != lastYaw[slot] || pitch != lastPitch[slot]) changed = changed or CHANGED_ROTATION
+            if (actions != lastActions[slot]) changed = changed or CHANGED_ACTIONS
+            if (changed == 0) {
+                continue
+            }
+
+            if (!ensureSpace(MAX_FRAME_BYTES)) {
+                return
+            }
+            writeTick()
+            writeByte(FRAME_PLAYER_STATE or changed)
+            writeVarInt(slot)
+            if (changed and CHANGED_POSITION != 0) {
+                writeSignedVarInt(x - lastX[slot])
+                writeSignedVarInt(y - lastY[slot])
+                writeSignedVarInt(z - lastZ[slot])
+                lastX[slot] = x
+                lastY[slot] = y
+                lastZ[slot] = z
+            }
+            if (changed and CHANGED_ROTATION != 0) {
+                writeByte(yaw.toInt())
+                writeByte(pitch.toInt())
+                lastYaw[slot] = yaw
+                lastPitch[slot] = pitch
+            }
+            if (changed and CHANGED_ACTIONS != 0) {
+                writeByte(actions)
+                lastActions[slot] = actions
+            }
+        }
+
+        if (tail - head >= ring.size / 2) {
+            spill()
+        }
+    }
+
+    /**
+     * Write the tick marker once per tick, before the first frame of that tick.
+     */
+    private fun writeTick() {
+        if (tick != lastWrittenTick) {
+            writeByte(FRAME_TICK)
+            writeVarInt((tick - lastWrittenTick).toInt())
+            lastWrittenTick = tick
+        }
+    }
+
+    /**
+     * Make room for a frame in the ring.
+     *
+     * @return false if the file is full and recording stopped
+     */
+    private fun ensureSpace(bytes: Int): Boolean {
+        if (ring.size - (tail - head) < bytes) {
+            spill()
+        }
+        return !stopped
+    }
+
+    /**
+     * Copy everything in the ring to the mapped file.
+     */
+    private fun spill() {
+        try {
+            while (head < tail) {
+                val out = mapped
+                if (out == null || !out.hasRemaining()) {
+                    if (!mapNextChunk()) {
+                        logger.warning("Replay ${file.name} reached its size limit, recording stopped")
+                        stopped = true
+                        task.cancel()
+                        head = tail
+                        return
+                    }
+                    continue
+                }
+                val start = (head and ringMask.toLong()).toInt()
+                val length = minOf(tail - head, (ring.size - start).toLong(), out.remaining().toLong()).toInt()
+                out.put(ring, start, length)
+                head += length
+            }
+        } catch (e: IOException) {
+            logger.warning("Failed to write replay ${file.name}, recording stopped: ${e.message}")
+            stopped = true
+            task.cancel()
+            head = tail
+        }
+    }
+
+    private fun mapNextChunk(): Boolean {
+        val current = mapped
+        val position = mappedOffset + (current?.position() ?: 0)
+        if (position >= maxFileBytes) {
+            return false
+        }
+        current?.force()
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, position, minOf(CHUNK_BYTES.toLong(), maxFileBytes - position))
+        mappedOffset = position
+        return true
+    }
+
+    private fun writeByte(value: Int) {
+        ring[(tail and ringMask.toLong()).toInt()] = value.toByte()
+        tail++
+    }
+
+    private fun writeInt(value: Int) {
+        writeByte(value ushr 24)
+        writeByte(value ushr 16)
+        writeByte(value ushr 8)
+        writeByte(value)
+    }
+
+    private fun writeLong(value: Long) {
+        writeInt((value ushr 32).toInt())
+        writeInt(value.toInt())
+    }
+
+    private fun writeVarInt(value: Int) {
+        var remaining = value
+        while (remaining and 0x7F.inv() != 0) {
+            writeByte((remaining and 0x7F) or 0x80)
+            remaining = remaining ushr 7
+        }
+        writeByte(remaining)
+    }
+
+    private fun writeSignedVarInt(value: Int) {
+        writeVarInt((value shl 1) xor (value shr 31))
+    }
+
+    private fun toUnits(coordinate: Double): Int = floor(coordinate * UNITS_PER_BLOCK).toInt()
+
+    private fun toAngle(degrees: Float): Byte = (degrees * 256f / 360f).toInt().toByte()
+}
+
+/**
+ * Actions recorded with each player sample. Stored as bits, so bits must never change.
+ */
+enum class ReplayAction(internal val bit: Int) {
+    SNEAKING(1),
+    SPRINTING(2),
+    GLIDING(4),
+    SWING(8),
+    HURT(16),
+    USE(32);
+
+    /**
+     * Check if this action is set in the action bits of a [ReplaySample]
+     */
+    fun isSet(actions: Int): Boolean = actions and bit != 0
+}
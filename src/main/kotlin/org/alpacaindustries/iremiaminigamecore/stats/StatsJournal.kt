@@ -0,0 +1,243 @@
+package org.alpacaindustries.iremiaminigamecore.stats
+
+import java.io.ByteArrayOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.nio.file.StandardOpenOption
+import java.util.*
+import java.util.logging.Logger
+import java.util.zip.CRC32
+
+/**
+ * Crash-safe file storage for player statistics.
+ *
+ * Changes are appended to a journal as checksummed frames, one frame per batch, and
+ * forced to disk before the batch counts as written. From time to time all totals are
+ * written to a snapshot and the journal starts over. Every frame carries a sequence
+ * number and the snapshot records the last one it contains, so a crash at any point
+ * recovers to the last complete batch: torn frames at the end of the journal are cut
+ * off, and frames already in the snapshot are never applied twice.
+ *
+ * Not thread-safe; only the stats writer thread uses it.
+ */
+internal class StatsJournal(
+    directory: File,
+    private val logger: Logger
+) {
+
+    companion object {
+        private const val FRAME_MAGIC = 0x49535431 // "IST1"
+        private const val FRAME_HEADER_BYTES = 8
+        private const val FRAME_TRAILER_BYTES = 8
+    }
+
+    private val snapshotFile = File(directory, "stats.snapshot")
+    private val journalFile = File(directory, "stats.journal")
+    private var channel: FileChannel? = null
+    private var sequence = 0L
+
+    /**
+     * Current journal size in bytes
+     */
+    val size: Long
+        get() = channel?.size() ?: 0L
+
+    /**
+     * Read the snapshot and replay the journal on top of it.
+     *
+     * @return totals per player and type, each array indexed by [StatType.ordinal]
+     */
+    fun load(): HashMap<StatsKey, LongArray> {
+        journalFile.parentFile?.mkdirs()
+        val totals = HashMap<StatsKey, LongArray>()
+
+        var snapshotSequence = 0L
+        if (snapshotFile.exists()) {
+            val frame = readFrames(Files.readAllBytes(snapshotFile.toPath())).frames.firstOrNull()
+            if (frame == null) {
+                logger.severe("Stats snapshot is corrupt, starting from the journal only")
+            } else {
+                snapshotSequence = frame.sequence
+                frame.entries.forEach { entry -> valuesFor(totals, entry.key)[entry.stat.ordinal] = entry.value }
+            }
+        }
+        sequence = snapshotSequence
+
+        val journal = open()
+        val bytes = ByteArray(journal.size().toInt())
+        val buffer = ByteBuffer.wrap(bytes)
+        while (buffer.hasRemaining() && journal.read(buffer, buffer.position().toLong()) >= 0) {
+            // Keep reading until the whole journal is in memory
+        }
+        val parsed = readFrames(bytes)
+        parsed.frames.filter { it.sequence > snapshotSequence }.forEach { frame ->
+            frame.entries.forEach { entry -> valuesFor(totals, entry.key)[entry.stat.ordinal] += entry.value }
+            sequence = maxOf(sequence, frame.sequence)
+        }
+
+        if (parsed.validBytes < bytes.size) {
+            logger.warning("Discarding ${bytes.size - parsed.validBytes} bytes of an incomplete stats batch")
+            journal.truncate(parsed.validBytes.toLong())
+            journal.force(true)
+        }
+        journal.position(journal.size())
+        return totals
+    }
+
+    /**
+     * Append one batch of changes and force it to disk.
+     */
+    fun append(entries: List<StatEntry>) {
+        if (entries.isEmpty()) {
+            return
+        }
+        val journal = open()
+        val start = journal.position()
+        val frame = encodeFrame(sequence + 1, entries)
+        try {
+            while (frame.hasRemaining()) {
+                journal.write(frame)
+            }
+            journal.force(false)
+        } catch (e: IOException) {
+            // Drop the partial frame, or every later batch would sit behind it and be lost on load
+            journal.truncate(start)
+            journal.position(start)
+            throw e
+        }
+        sequence++
+    }
+
+    /**
+     * Write all totals to a new snapshot and empty the journal.
+     */
+    fun compact(totals: Map<StatsKey, LongArray>) {
+        val entries = ArrayList<StatEntry>()
+        totals.forEach { (key, values) ->
+            StatType.entries.forEach { stat ->
+                if (values[stat.ordinal] != 0L) {
+                    entries.add(StatEntry(key, stat, values[stat.ordinal]))
+                }
+            }
+        }
+
+        val temp = File(snapshotFile.parentFile, "${snapshotFile.name}.tmp")
+        FileChannel.open(
+            temp.toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING
+        ).use { out ->
+            val frame = encodeFrame(sequence, entries)
+            while (frame.hasRemaining()) {
+                out.write(frame)
+            }
+            out.force(true)
+        }
+        Files.move(temp.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+
+        // A crash before this point leaves frames the snapshot already covers; load() skips them
+        val journal = open()
+        journal.truncate(0)
+        journal.force(true)
+        journal.position(0)
+    }
+
+    fun close() {
+        channel?.close()
+        channel = null
+    }
+
+    private fun open(): FileChannel = channel ?: FileChannel.open(
+        journalFile.toPath(),
+        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE
+    ).also { channel = it }
+
+    private fun valuesFor(totals: HashMap<StatsKey, LongArray>, key: StatsKey): LongArray =
+        totals.getOrPut(key) { LongArray(StatType.entries.size) }
+
+    private fun encodeFrame(frameSequence: Long, entries: List<StatEntry>): ByteBuffer {
+        val payloadBytes = ByteArrayOutputStream()
+        DataOutputStream(payloadBytes).use { out ->
+            out.writeLong(frameSequence)
+            out.writeInt(entries.size)
+            entries.forEach { entry ->
+                out.writeUTF(entry.key.typeId)
+                out.writeLong(entry.key.playerId.mostSignificantBits)
+                out.writeLong(entry.key.playerId.leastSignificantBits)
+                out.writeByte(entry.stat.ordinal)
+                out.writeLong(entry.value)
+            }
+        }
+        val payload = payloadBytes.toByteArray()
+        val crc = CRC32().apply { update(payload) }
+
+        val frame = ByteBuffer.allocate(FRAME_HEADER_BYTES + payload.size + FRAME_TRAILER_BYTES)
+        frame.putInt(FRAME_MAGIC)
+        frame.putInt(payload.size)
+        frame.put(payload)
+        frame.putLong(crc.value)
+        frame.flip()
+        return frame
+    }
+
+    private fun readFrames(bytes: ByteArray): ParsedFrames {
+        val buffer = ByteBuffer.wrap(bytes)
+        val frames = ArrayList<Frame>()
+        while (buffer.remaining() >= FRAME_HEADER_BYTES) {
+            val start = buffer.position()
+            if (buffer.int != FRAME_MAGIC) {
+                return ParsedFrames(frames, start)
+            }
+            val length = buffer.int
+            if (length < 12 || buffer.remaining() < length + FRAME_TRAILER_BYTES) {
+                return ParsedFrames(frames, start)
+            }
+            val payload = ByteArray(length)
+            buffer.get(payload)
+            if (CRC32().apply { update(payload) }.value != buffer.long) {
+                return ParsedFrames(frames, start)
+            }
+            frames.add(decodeFrame(payload) ?: return ParsedFrames(frames, start))
+        }
+        return ParsedFrames(frames, buffer.position())
+    }
+
+    private fun decodeFrame(payload: ByteArray): Frame? {
+        return try {
+            val input = DataInputStream(payload.inputStream())
+            val frameSequence = input.readLong()
+            val count = input.readInt()
+            val entries = ArrayList<StatEntry>(count)
+            repeat(count) {
+                val typeId = input.readUTF()
+                val playerId = UUID(input.readLong(), input.readLong())
+                val statIndex = input.readUnsignedByte()
+                val value = input.readLong()
+                // Stats from a newer version are skipped rather than failing the whole batch
+                StatType.entries.getOrNull(statIndex)?.let { entries.add(StatEntry(StatsKey(typeId, playerId), it, value)) }
+            }
+            Frame(frameSequence, entries)
+        } catch (e: IOException) {
+            null
+        }
+    }
+
+    private class Frame(val sequence: Long, val entries: List<StatEntry>)
+
+    private class ParsedFrames(val frames: List<Frame>, val validBytes: Int)
+}
+
+/**
+ * Player and minigame type a statistic belongs to
+ */
+data class StatsKey(val typeId: String, val playerId: UUID)
+
+/**
+ * A change to, or the total of, one statistic
+ */
+internal class StatEntry(val key: StatsKey, val stat: StatType, val value: Long)
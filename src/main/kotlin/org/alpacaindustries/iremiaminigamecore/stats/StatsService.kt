@@ -0,0 +1,256 @@
+package org.alpacaindustries.iremiaminigamecore.stats
+
+import java.io.File
+import java.util.*
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLongArray
+import java.util.logging.Logger
+
+/**
+ * Persistent player statistics per minigame type.
+ *
+ * Updates change the in-memory totals immediately and are queued for a write-behind
+ * thread, which coalesces them and appends one batch per flush interval to a crash-safe
+ * [StatsJournal]. No file access ever happens on the calling thread.
+ */
+class StatsService internal constructor(
+    private val logger: Logger,
+    directory: File,
+    private val compactThresholdBytes: Long
+) {
+
+    private val totals = ConcurrentHashMap<StatsKey, AtomicLongArray>()
+    private val pending = ConcurrentLinkedQueue<StatEntry>()
+    private val sessions = ConcurrentHashMap<UUID, Session>()
+    private val journal = StatsJournal(directory, logger)
+    private val writer: ScheduledExecutorService = Executors.newSingleThreadScheduledExecutor { task ->
+        Thread(task, "IremiaMinigameCore-Stats").apply { isDaemon = true }
+    }
+
+    // Totals as written to the journal, only touched by the writer thread
+    private var durable = HashMap<StatsKey, LongArray>()
+
+    /**
+     * Load stored statistics, recovering from an interrupted write if needed.
+     * Blocks until loading finished on the writer thread.
+     */
+    fun load() {
+        writer.submit(Runnable {
+            try {
+                durable = journal.load()
+                totals.clear()
+                durable.forEach { (key, values) -> totals[key] = AtomicLongArray(values.copyOf()) }
+                logger.info("Loaded statistics for ${durable.keys.map { it.playerId }.toSet().size} players")
+            } catch (e: Exception) {
+                logger.severe("Failed to load statistics: ${e.message}")
+            }
+        }).get()
+    }
+
+    /**
+     * Write queued changes every interval.
+     */
+    fun start(intervalMillis: Long) {
+        writer.scheduleWithFixedDelay(::writePending, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS)
+    }
+
+    /**
+     * Add to a statistic of a player.
+     *
+     * @param typeId Minigame type the statistic belongs to
+     * @param playerId Player
+     * @param stat Statistic to change
+     * @param amount Amount to add
+     */
+    @JvmOverloads
+    fun increment(typeId: String, playerId: UUID, stat: StatType, amount: Long = 1) {
+        if (amount == 0L) {
+            return
+        }
+        val key = StatsKey(typeId, playerId)
+        totals.computeIfAbsent(key) { AtomicLongArray(StatType.entries.size) }.addAndGet(stat.ordinal, amount)
+        pending.add(StatEntry(key, stat, amount))
+    }
+
+    /**
+     * Get the statistics of a player in one minigame type.
+     */
+    fun getStats(typeId: String, playerId: UUID): PlayerStats =
+        totals[StatsKey(typeId, playerId)]?.let { PlayerStats.of(it) } ?: PlayerStats.EMPTY
+
+    /**
+     * Get the statistics of a player summed over all minigame types.
+     */
+    fun getTotalStats(playerId: UUID): PlayerStats {
+        val sum = LongArray(StatType.entries.size)
+        totals.forEach { (key, values) ->
+            if (key.playerId == playerId) {
+                for (i in sum.indices) {
+                    sum[i] += values.get(i)
+                }
+            }
+        }
+        return PlayerStats.of(sum)
+    }
+
+    /**
+     * Get the players with the highest value of a statistic in one minigame type, highest first.
+     */
+    fun getTopPlayers(typeId: String, stat: StatType, limit: Int): List<Pair<UUID, Long>> =
+        totals.entries
+            .filter { it.key.typeId == typeId }
+            .map { it.key.playerId to it.value.get(stat.ordinal) }
+            .sortedByDescending { it.second }
+            .take(limit)
+
+    /**
+     * Start counting play time of a player in a minigame type.
+     */
+    fun startSession(typeId: String, playerId: UUID) {
+        sessions[playerId] = Session(typeId, System.currentTimeMillis())
+    }
+
+    /**
+     * Stop counting play time of a player and add it to their statistics.
+     */
+    fun endSession(playerId: UUID) {
+        val session = sessions.remove(playerId) ?: return
+        increment(session.typeId, playerId, StatType.PLAY_TIME_MILLIS, System.currentTimeMillis() - session.startedAt)
+    }
+
+    /**
+     * Write queued changes now on the writer thread.
+     */
+    fun flush() {
+        try {
+            writer.execute(::writePending)
+        } catch (e: Exception) {
+            logger.warning("Could not queue statistics save: ${e.message}")
+        }
+    }
+
+    /**
+     * End all sessions, write everything queued and close the store.
+     */
+    fun shutdown() {
+        sessions.keys.toList().forEach { endSession(it) }
+        flush()
+        writer.execute { journal.close() }
+        writer.shutdown()
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warning("Timed out saving statistics")
+            }
+        } catch (e: InterruptedException) {
+            Thread.currentThread().interrupt()
+        }
+    }
+
+    private fun writePending() {
+        // Coalesce everything queued into one change per player, type and statistic
+        val batch = LinkedHashMap<StatsKey, LongArray>()
+        while (true) {
+            val entry = pending.poll() ?: break
+            batch.getOrPut(entry.key) { LongArray(StatType.entries.size) }[entry.stat.ordinal] += entry.value
+        }
+        if (batch.isEmpty()) {
+            return
+        }
+
+        val entries = ArrayList<StatEntry>()
+        batch.forEach { (key, deltas) ->
+            StatType.entries.forEach { stat ->
+                if (deltas[stat.ordinal] != 0L) {
+                    entries.add(StatEntry(key, stat, deltas[stat.ordinal]))
+                }
+            }
+        }
+
+        try {
+            journal.append(entries)
+        } catch (e: Exception) {
+            // Keep the changes for the next attempt
+            entries.forEach { pending.add(it) }
+            logger.warning("Failed to save statistics: ${e.message}")
+            return
+        }
+
+        batch.forEach { (key, deltas) ->
+            val values = durable.getOrPut(key) { LongArray(StatType.entries.size) }
+            for (i in values.indices) {
+                values[i] += deltas[i]
+            }
+        }
+
+        if (journal.size >= compactThresholdBytes) {
+            try {
+                journal.compact(durable)
+            } catch (e: Exception) {
+                logger.warning("Failed to compact statistics: ${e.message}")
+            }
+        }
+    }
+
+    private class Session(val typeId: String, val startedAt: Long)
+}
+
+/**
+ * Tracked statistics. Stored by position, so new statistics must be added at the end.
+ */
+enum class StatType {
+    GAMES_PLAYED,
+    WINS,
+    KILLS,
+    ELIMINATIONS,
+    PLAY_TIME_MILLIS
+}
+
+/**
+ * Statistics of a player
+ *
+ * @property gamesPlayed Games played until the end
+ * @property wins Games finished in first place
+ * @property kills Players killed
+ * @property eliminations Times eliminated
+ * @property playTimeMillis Time spent in games
+ */
+data class PlayerStats(
+    val gamesPlayed: Long,
+    val wins: Long,
+    val kills: Long,
+    val eliminations: Long,
+    val playTimeMillis: Long
+) {
+    operator fun get(stat: StatType): Long = when (stat) {
+        StatType.GAMES_PLAYED -> gamesPlayed
+        StatType.WINS -> wins
+        StatType.KILLS -> kills
+        StatType.ELIMINATIONS -> eliminations
+        StatType.PLAY_TIME_MILLIS -> playTimeMillis
+    }
+
+    companion object {
+        @JvmField
+        val EMPTY = PlayerStats(0, 0, 0, 0, 0)
+
+        internal fun of(values: AtomicLongArray) = PlayerStats(
+            values.get(StatType.GAMES_PLAYED.ordinal),
+            values.get(StatType.WINS.ordinal),
+            values.get(StatType.KILLS.ordinal),
+            values.get(StatType.ELIMINATIONS.ordinal),
+            values.get(StatType.PLAY_TIME_MILLIS.ordinal)
+        )
+
+        internal fun of(values: LongArray) = PlayerStats(
+            values[StatType.GAMES_PLAYED.ordinal],
+            values[StatType.WINS.ordinal],
+            values[StatType.KILLS.ordinal],
+            values[StatType.ELIMINATIONS.ordinal],
+            values[StatType.PLAY_TIME_MILLIS.ordinal]
+        )
+    }
+}
@@ -3,6 +3,7 @@ package org.alpacaindustries.iremiaminigamecore.system.ui;
 import net.kyori.adventure.text.Component
 import net.kyori.adventure.text.format.NamedTextColor
 import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer
+import org.alpacaindustries.iremiaminigamecore.util.TickScheduler
 import org.bukkit.Bukkit
 import org.bukkit.entity.Player
 import org.bukkit.scoreboard.*
@@ -16,20 +17,49 @@ import java.util.concurrent.ConcurrentHashMap
  * - Thread-safe operations
  * - Automatic cleanup on player disconnect
  * - Line-based and team-based content management
+ * - Diff-based rendering: only changed lines are sent, at most once per tick
+ * - Per-player line overlays on top of the shared layout
  * - Adventure Component support with legacy fallback
  * - Fluent API for easy chaining
  *
+ * Line changes only update the desired state. When a [TickScheduler] is given, the
+ * difference to what viewers currently see is flushed once on the next tick, so a burst
+ * of updates costs one prefix change per line that actually changed. Without a
+ * scheduler every change is flushed immediately.
+ *
+ * Players without overlays all watch one shared Bukkit scoreboard. A player only gets a
+ * personal scoreboard once a per-player line is set, and only the overlay lines are
+ * stored for them; every other line mirrors the shared layout. Team helpers such as
+ * [updateTeam] and [createPlayerTeam] only apply to the shared scoreboard.
+ *
  * @param title The title component to display at the top of the scoreboard
+ * @param flushScheduler Scheduler used to coalesce line updates, or null to flush immediately
  */
-class GameScoreboard(title: Component) {
+class GameScoreboard @JvmOverloads constructor(
+    title: Component,
+    private val flushScheduler: TickScheduler? = null
+) {
 
     private val scoreboard: Scoreboard = Bukkit.getScoreboardManager()!!.newScoreboard
     private val objective: Objective = scoreboard.registerNewObjective("game", Criteria.DUMMY, title)
+    private var currentTitle: Component = title
+
+    // Desired shared lines indexed by line number, and what viewers currently see
+    private val lock = Any()
+    private val desiredLines = arrayOfNulls<Component>(MAX_LINES + 1)
+    private val sharedView = SidebarView(scoreboard, objective)
+    private var dirty = false
+    private var pendingFlush: TickScheduler.Handle? = null
+
+    // Personal views, only for players with overlay lines
+    private val playerViews = HashMap<UUID, PlayerView>()
+    private val dirtyPlayerViews = HashSet<UUID>()
 
     // Thread-safe collections for concurrent access
-    private val lines = ConcurrentHashMap<Int, String>()
+    // previousScoreboards doubles as the viewer index, so no lookup scans online players
     private val previousScoreboards = ConcurrentHashMap<UUID, Scoreboard>()
     private val playerTeams = ConcurrentHashMap<UUID, Set<String>>()
+    private val teamEntryNames = ConcurrentHashMap<UUID, String>()
 
     init {
         objective.displaySlot = DisplaySlot.SIDEBAR
@@ -69,30 +99,126 @@ class GameScoreboard(title: Component) {
             "Line must be between $MIN_LINES and $MAX_LINES, got $line"
         }
 
-        // Remove existing line if it exists
-        lines[line]?.let { entryId ->
-            scoreboard.resetScores(entryId)
+        synchronized(lock) {
+            desiredLines[line] = component
+            markDirty()
         }
+        return this
+    }
 
-        // Create a unique entry ID for this line
-        val entryId = generateEntryId(line)
-        lines[line] = entryId
+    /**
+     * Replaces the whole sidebar with the given lines.
+     * Lines missing from the map are removed; lines equal to what is shown are not resent.
+     *
+     * @param lines Line components keyed by line number (1-15, where 1 is at the bottom)
+     * @return This scoreboard for method chaining
+     * @throws IllegalArgumentException if a line is not between 1 and 15
+     */
+    fun render(lines: Map<Int, Component>): GameScoreboard {
+        lines.keys.forEach { line ->
+            require(line in MIN_LINES..MAX_LINES) {
+                "Line must be between $MIN_LINES and $MAX_LINES, got $line"
+            }
+        }
 
-        // Get or create the team for this line
-        val teamName = "line_$line"
-        val team = getOrCreateTeam(teamName)
+        synchronized(lock) {
+            for (line in MIN_LINES..MAX_LINES) {
+                desiredLines[line] = lines[line]
+            }
+            markDirty()
+        }
+        return this
+    }
 
-        // Clear existing entries and add our new one
-        team.entries.toList().forEach { team.removeEntry(it) }
-        team.addEntry(entryId)
+    /**
+     * Applies all pending line changes now instead of waiting for the next tick.
+     * Must be called on the main thread.
+     */
+    fun flush() {
+        synchronized(lock) {
+            pendingFlush?.cancel()
+            pendingFlush = null
+
+            if (dirty) {
+                sharedView.apply { desiredLines[it] }
+                // Shared changes reach every personal view; overlay lines shadow them
+                playerViews.forEach { (playerId, view) -> flushPlayerView(playerId, view) }
+            } else {
+                dirtyPlayerViews.forEach { playerId ->
+                    playerViews[playerId]?.let { flushPlayerView(playerId, it) }
+                }
+            }
+            dirty = false
+            dirtyPlayerViews.clear()
+        }
+    }
 
-        // Set the component text as prefix
-        team.prefix(component)
-        team.suffix(Component.empty())
+    /**
+     * Sets a line for one player only, overriding the shared line with the same number.
+     *
+     * @param player The player who sees this line
+     * @param line The line number (1-15, where 1 is at the bottom)
+     * @param component The component to display on this line
+     * @return This scoreboard for method chaining
+     * @throws IllegalArgumentException if line is not between 1 and 15
+     */
+    fun setPlayerLine(player: Player, line: Int, component: Component): GameScoreboard {
+        require(line in MIN_LINES..MAX_LINES) {
+            "Line must be between $MIN_LINES and $MAX_LINES, got $line"
+        }
+
+        synchronized(lock) {
+            val view = playerViews.getOrPut(player.uniqueId) { createPlayerView() }
+            if (view.overlay[line] != component) {
+                if (view.overlay[line] == null) {
+                    view.overlayCount++
+                }
+                view.overlay[line] = component
+                markPlayerDirty(player.uniqueId)
+            }
+        }
+        return this
+    }
+
+    /**
+     * Removes a per-player line, revealing the shared line underneath.
+     * Once a player has no overlay lines left they return to the shared scoreboard.
+     *
+     * @param player The player
+     * @param line The line number
+     * @return This scoreboard for method chaining
+     */
+    fun removePlayerLine(player: Player, line: Int): GameScoreboard {
+        if (line !in MIN_LINES..MAX_LINES) {
+            return this
+        }
 
-        // Set the score (higher scores appear at the top)
-        objective.getScore(entryId).score = line
+        synchronized(lock) {
+            val view = playerViews[player.uniqueId] ?: return this
+            if (view.overlay[line] == null) {
+                return this
+            }
+            view.overlay[line] = null
+            view.overlayCount--
+            if (view.overlayCount == 0) {
+                dropPlayerView(player.uniqueId, player)
+            } else {
+                markPlayerDirty(player.uniqueId)
+            }
+        }
+        return this
+    }
 
+    /**
+     * Removes all per-player lines of a player, returning them to the shared scoreboard.
+     *
+     * @param player The player
+     * @return This scoreboard for method chaining
+     */
+    fun clearPlayerLines(player: Player): GameScoreboard {
+        synchronized(lock) {
+            dropPlayerView(player.uniqueId, player)
+        }
         return this
     }
 
@@ -131,11 +257,13 @@ class GameScoreboard(title: Component) {
      * @return This scoreboard for method chaining
      */
     fun removeLine(line: Int): GameScoreboard {
-        lines[line]?.let { entryId ->
-            scoreboard.resetScores(entryId)
-            val teamName = "line_$line"
-            scoreboard.getTeam(teamName)?.unregister()
-            lines.remove(line)
+        if (line in MIN_LINES..MAX_LINES) {
+            synchronized(lock) {
+                if (desiredLines[line] != null) {
+                    desiredLines[line] = null
+                    markDirty()
+                }
+            }
         }
         return this
     }
@@ -146,8 +274,7 @@ class GameScoreboard(title: Component) {
      * @return This scoreboard for method chaining
      */
     fun clearLines(): GameScoreboard {
-        lines.keys.toList().forEach { removeLine(it) }
-        return this
+        return render(emptyMap())
     }
 
     /**
@@ -221,6 +348,7 @@ class GameScoreboard(title: Component) {
         playerTeams.compute(player.uniqueId) { _, existing ->
             (existing ?: emptySet()) + teamName
         }
+        teamEntryNames[player.uniqueId] = player.name
 
         return this
     }
@@ -233,7 +361,9 @@ class GameScoreboard(title: Component) {
     fun showTo(player: Player) {
         // Store their previous scoreboard for restoration
         previousScoreboards[player.uniqueId] = player.scoreboard
-        player.scoreboard = scoreboard
+        player.scoreboard = synchronized(lock) {
+            playerViews[player.uniqueId]?.takeIf { it.ready }?.sidebar?.scoreboard ?: scoreboard
+        }
     }
 
     /**
@@ -251,11 +381,15 @@ class GameScoreboard(title: Component) {
      * @param player Player to hide the scoreboard from
      */
     fun hideFrom(player: Player) {
+        // Disconnected players cannot be given a scoreboard, only forgotten
+        if (!player.isOnline) {
+            removeViewer(player.uniqueId)
+            return
+        }
+
         val previous = previousScoreboards.remove(player.uniqueId)
         player.scoreboard = previous ?: Bukkit.getScoreboardManager()!!.mainScoreboard
-
-        // Clean up player-specific teams
-        cleanupPlayerTeams(player)
+        forgetPlayer(player.uniqueId)
     }
 
     /**
@@ -267,6 +401,32 @@ class GameScoreboard(title: Component) {
         players.forEach { hideFrom(it) }
     }
 
+    /**
+     * Hides this scoreboard from every tracked viewer.
+     * Viewers who disconnected or switched to another scoreboard are only dropped from tracking.
+     */
+    fun hideFromAll() {
+        previousScoreboards.keys.toList().forEach { playerId ->
+            val player = Bukkit.getPlayer(playerId)
+            if (player != null && isShownTo(player)) {
+                hideFrom(player)
+            } else {
+                removeViewer(playerId)
+            }
+        }
+    }
+
+    /**
+     * Stops tracking a viewer without touching their current scoreboard,
+     * e.g. when they disconnected.
+     *
+     * @param playerId UUID of the viewer
+     */
+    fun removeViewer(playerId: UUID) {
+        previousScoreboards.remove(playerId)
+        forgetPlayer(playerId)
+    }
+
     /**
      * Checks if a player is currently viewing this scoreboard.
      *
@@ -274,7 +434,11 @@ class GameScoreboard(title: Component) {
      * @return true if the player is viewing this scoreboard
      */
     fun isShownTo(player: Player): Boolean {
-        return player.scoreboard == scoreboard
+        val current = player.scoreboard
+        if (current == scoreboard) {
+            return true
+        }
+        return synchronized(lock) { playerViews[player.uniqueId]?.sidebar?.scoreboard == current }
     }
 
     /**
@@ -283,9 +447,19 @@ class GameScoreboard(title: Component) {
      * @return Set of players viewing this scoreboard
      */
     fun getViewers(): Set<Player> {
-        return Bukkit.getOnlinePlayers().filter { it.scoreboard == scoreboard }.toSet()
+        val viewers = HashSet<Player>(previousScoreboards.size)
+        previousScoreboards.keys.forEach { playerId ->
+            Bukkit.getPlayer(playerId)?.takeIf { isShownTo(it) }?.let { viewers.add(it) }
+        }
+        return viewers
     }
 
+    /**
+     * Gets the number of tracked viewers, including any that disconnected without being hidden.
+     */
+    val viewerCount: Int
+        get() = previousScoreboards.size
+
     /**
      * Updates the scoreboard title.
      *
@@ -293,7 +467,13 @@ class GameScoreboard(title: Component) {
      * @return This scoreboard for method chaining
      */
     fun updateTitle(title: Component): GameScoreboard {
-        objective.displayName(title)
+        synchronized(lock) {
+            if (title != currentTitle) {
+                currentTitle = title
+                objective.displayName(title)
+                playerViews.values.forEach { it.sidebar.objective.displayName(title) }
+            }
+        }
         return this
     }
 
@@ -311,13 +491,25 @@ class GameScoreboard(title: Component) {
      * Cleans up all resources and hides the scoreboard from all viewers.
      */
     fun cleanup() {
-        // Hide from all current viewers
-        getViewers().forEach { hideFrom(it) }
+        // Hide from all tracked viewers
+        hideFromAll()
+
+        // Drop pending renders
+        synchronized(lock) {
+            pendingFlush?.cancel()
+            pendingFlush = null
+            dirty = false
+            desiredLines.fill(null)
+            sharedView.reset()
+            playerViews.values.forEach { it.sidebar.objective.unregister() }
+            playerViews.clear()
+            dirtyPlayerViews.clear()
+        }
 
         // Clear all data structures
-        lines.clear()
         previousScoreboards.clear()
         playerTeams.clear()
+        teamEntryNames.clear()
 
         // Unregister the objective
         objective.unregister()
@@ -334,6 +526,54 @@ class GameScoreboard(title: Component) {
 
     // Private helper methods
 
+    private fun markDirty() {
+        dirty = true
+        requestFlush()
+    }
+
+    private fun markPlayerDirty(playerId: UUID) {
+        dirtyPlayerViews.add(playerId)
+        requestFlush()
+    }
+
+    private fun requestFlush() {
+        val scheduler = flushScheduler
+        if (scheduler == null) {
+            flush()
+        } else if (pendingFlush == null) {
+            pendingFlush = scheduler.schedule(Runnable { flush() }, 1L)
+        }
+    }
+
+    private fun createPlayerView(): PlayerView {
+        val personal = Bukkit.getScoreboardManager()!!.newScoreboard
+        val personalObjective = personal.registerNewObjective("game", Criteria.DUMMY, currentTitle)
+        personalObjective.displaySlot = DisplaySlot.SIDEBAR
+        return PlayerView(SidebarView(personal, personalObjective))
+    }
+
+    private fun flushPlayerView(playerId: UUID, view: PlayerView) {
+        view.sidebar.apply { view.overlay[it] ?: desiredLines[it] }
+        if (!view.ready) {
+            // Switch viewers over only once the personal board is fully rendered
+            view.ready = true
+            Bukkit.getPlayer(playerId)?.let { player ->
+                if (player.scoreboard == scoreboard) {
+                    player.scoreboard = view.sidebar.scoreboard
+                }
+            }
+        }
+    }
+
+    private fun dropPlayerView(playerId: UUID, player: Player) {
+        val view = playerViews.remove(playerId) ?: return
+        dirtyPlayerViews.remove(playerId)
+        if (player.scoreboard == view.sidebar.scoreboard) {
+            player.scoreboard = scoreboard
+        }
+        view.sidebar.objective.unregister()
+    }
+
     private fun generateEntryId(line: Int): String {
         // Use a combination of color codes to create unique, invisible entries
         val hexChar = Integer.toHexString(line).lowercase()
@@ -344,10 +584,71 @@ class GameScoreboard(title: Component) {
         return scoreboard.getTeam(teamName) ?: scoreboard.registerNewTeam(teamName)
     }
 
-    private fun cleanupPlayerTeams(player: Player) {
-        playerTeams.remove(player.uniqueId)?.forEach { teamName ->
+    /**
+     * Sidebar lines of one Bukkit scoreboard, remembering what was last sent
+     */
+    private inner class SidebarView(val scoreboard: Scoreboard, val objective: Objective) {
+        private val renderedLines = arrayOfNulls<Component>(MAX_LINES + 1)
+
+        fun apply(desiredLine: (Int) -> Component?) {
+            for (line in MIN_LINES..MAX_LINES) {
+                val desired = desiredLine(line)
+                val rendered = renderedLines[line]
+                if (desired == rendered) {
+                    continue
+                }
+
+                val entryId = generateEntryId(line)
+                val teamName = "line_$line"
+                when {
+                    desired == null -> {
+                        scoreboard.resetScores(entryId)
+                        scoreboard.getTeam(teamName)?.unregister()
+                    }
+                    rendered == null -> {
+                        val team = scoreboard.getTeam(teamName) ?: scoreboard.registerNewTeam(teamName)
+                        team.addEntry(entryId)
+                        team.prefix(desired)
+                        team.suffix(Component.empty())
+                        // Set the score (higher scores appear at the top)
+                        objective.getScore(entryId).score = line
+                    }
+                    else -> scoreboard.getTeam(teamName)?.prefix(desired)
+                }
+                renderedLines[line] = desired
+            }
+        }
+
+        fun reset() {
+            renderedLines.fill(null)
+        }
+    }
+
+    /**
+     * Overlay lines of one player and the personal scoreboard they are rendered on
+     */
+    private class PlayerView(val sidebar: SidebarView) {
+        val overlay = arrayOfNulls<Component>(MAX_LINES + 1)
+        var overlayCount = 0
+        var ready = false
+    }
+
+    private fun forgetPlayer(playerId: UUID) {
+        // Drop their personal view, if any
+        synchronized(lock) {
+            playerViews.remove(playerId)?.sidebar?.objective?.unregister()
+            dirtyPlayerViews.remove(playerId)
+        }
+
+        // Clean up player-specific teams
+        cleanupPlayerTeams(playerId)
+    }
+
+    private fun cleanupPlayerTeams(playerId: UUID) {
+        val entryName = teamEntryNames.remove(playerId)
+        playerTeams.remove(playerId)?.forEach { teamName ->
             scoreboard.getTeam(teamName)?.let { team ->
-                team.removeEntry(player.name)
+                entryName?.let { team.removeEntry(it) }
                 // Remove team if it has no more entries
                 if (team.entries.isEmpty()) {
                     team.unregister()